@@ -0,0 +1,88 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the parse stage and a complete generation run of
+ * {@link Controller}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ControllerBenchmark {
+
+  @Param({"10", "100"})
+  private int files;
+
+  @Param({"30"})
+  private int methods;
+
+  @Param({"1", "4"})
+  private int threads;
+
+  private File src;
+  private File target;
+  private List<File> jsFiles;
+  private Controller controller;
+
+  @Setup
+  public void setUp() throws IOException {
+    src = Corpus.write(files, methods);
+    target = Files.createTempDirectory("gruifo-benchmark").toFile();
+    jsFiles = Corpus.listFiles(src);
+    controller = new Controller(Collections.singletonList(src), target);
+    controller.setThreads(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Corpus.delete(src);
+    Corpus.delete(target);
+  }
+
+  @Benchmark
+  public Object parseFiles() {
+    return controller.parseFiles(jsFiles);
+  }
+
+  @Benchmark
+  public void run() {
+    controller.run(OutputType.JSNI);
+  }
+}
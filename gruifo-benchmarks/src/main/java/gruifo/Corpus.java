@@ -0,0 +1,135 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import gruifo.lang.js.JsFile;
+import gruifo.parser.ParsedFile;
+import gruifo.parser.ParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.mozilla.javascript.ast.AstRoot;
+import org.mozilla.javascript.ast.Comment;
+
+/**
+ * Synthetic input for the benchmarks, generated with {@link SyntheticSources}.
+ * The same arguments always give the same corpus.
+ */
+public final class Corpus {
+
+  private Corpus() {
+    // util
+  }
+
+  /**
+   * Writes JavaScript files to a new temporary directory.
+   * @param files number of files
+   * @param methods number of methods per file
+   * @return the directory containing the files
+   * @throws IOException
+   */
+  public static File write(final int files, final int methods)
+      throws IOException {
+    final File dir = Files.createTempDirectory("gruifo-benchmark").toFile();
+    SyntheticSources.write(dir, files, methods);
+    return dir;
+  }
+
+  /**
+   * Returns the JavaScript files in the directory, sorted by name.
+   * @param dir directory
+   * @return JavaScript files
+   */
+  public static List<File> listFiles(final File dir) {
+    final List<File> files = new ArrayList<>();
+    for (final File file : dir.listFiles()) {
+      if (file.getName().endsWith(".js")) {
+        files.add(file);
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  /**
+   * Parses the JavaScript files the same way {@link Controller} does.
+   * @param files JavaScript files
+   * @return parsed files
+   */
+  public static List<JsFile> parse(final List<File> files) {
+    final List<JsFile> jsFiles = new ArrayList<>();
+    for (final ParsedFile parsedFile
+        : new Controller(files, null).parseFiles(files)) {
+      jsFiles.addAll(parsedFile.getJsFiles());
+    }
+    return jsFiles;
+  }
+
+  /**
+   * Returns the JSDoc comments in the JavaScript files.
+   * @param files JavaScript files
+   * @return JSDoc comments
+   * @throws IOException
+   */
+  public static List<String> jsDocs(final List<File> files)
+      throws IOException {
+    final List<String> jsDocs = new ArrayList<>();
+    final ParserFactory parserFactory = new ParserFactory();
+    for (final File file : files) {
+      final AstRoot root = parserFactory.parse(new String(
+          Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+          file.getPath());
+      if (root.getComments() != null) {
+        for (final Comment comment : root.getComments()) {
+          if (comment.getValue().startsWith("/**")) {
+            jsDocs.add(comment.getValue());
+          }
+        }
+      }
+    }
+    return jsDocs;
+  }
+
+  /**
+   * Returns JSDoc type expressions.
+   * @param count number of types
+   * @return type expressions
+   */
+  public static List<String> types(final int count) {
+    return SyntheticSources.types(count, new Random(count));
+  }
+
+  /**
+   * Deletes the directory and all its content.
+   * @param dir directory to delete
+   */
+  public static void delete(final File dir) {
+    final File[] files = dir.listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        delete(file);
+      }
+    }
+    dir.delete();
+  }
+}
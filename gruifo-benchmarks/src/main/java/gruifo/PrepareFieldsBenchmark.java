@@ -0,0 +1,95 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsParam;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks removing the @typedef fields that are also prototype fields, for
+ * a synthetic options typedef with many properties of which half is also
+ * declared as prototype field. The nested loops of the previous
+ * implementation are included as reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrepareFieldsBenchmark {
+
+  @Param({"100", "1000", "5000"})
+  private int properties;
+
+  private final List<JsParam> typeDefs = new ArrayList<>();
+  private final JsElement element = new JsElement();
+  private final JsFile jsFile = new JsFile("olx.js", "olx", "Options", false);
+  private final Controller controller =
+      new Controller(Collections.<File>emptyList(), new File("."));
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < properties; i++) {
+      typeDefs.add(new JsParam("property" + i, null));
+    }
+    // Prototype fields in reverse order, so each is found late in the list.
+    for (int i = properties - 1; i >= 0; i -= 2) {
+      jsFile.addField(new JsParam("property" + i, null));
+    }
+    jsFile.setElement(element);
+  }
+
+  @Benchmark
+  public Collection<JsFile> prepareFields() {
+    element.setTypeDef(new ArrayList<>(typeDefs));
+    return controller.prepareFields(Collections.singletonList(jsFile));
+  }
+
+  @Benchmark
+  public List<JsParam> nestedLoops() {
+    final List<JsParam> copy = new ArrayList<>(typeDefs);
+    for (final JsParam field : jsFile.getFields()) {
+      for (int i = 0; i < copy.size(); i++) {
+        if (field.getName().equals(copy.get(i).getName())) {
+          copy.remove(i);
+          break;
+        }
+      }
+    }
+    return copy;
+  }
+}
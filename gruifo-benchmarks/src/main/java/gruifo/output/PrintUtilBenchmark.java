@@ -0,0 +1,110 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks appending indented lines with {@link PrintUtil} against the
+ * previous implementation, which created a new indentation string on each
+ * call. Run with <code>-prof gc</code> to see the difference in allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrintUtilBenchmark {
+
+  private static final String JS_DOC = "/**\n * Returns the value.\n"
+      + " * @param {number} value The value.\n * @return {number} Value.\n */";
+  private static final String LINE = "public final native double getValue();";
+
+  @Param({"1000"})
+  private int lines;
+
+  @Param({"4"})
+  private int depth;
+
+  private final StringBuilder builder = new StringBuilder();
+
+  @Setup
+  public void setUp() {
+    builder.ensureCapacity(lines * (JS_DOC.length() + LINE.length()) * 2);
+  }
+
+  @Benchmark
+  public int cached() throws IOException {
+    builder.setLength(0);
+    for (int i = 0; i < lines; i++) {
+      final int indent = i % depth;
+      PrintUtil.indent(builder, JS_DOC, indent);
+      PrintUtil.indent(builder, indent);
+      builder.append(LINE);
+      PrintUtil.nl2(builder);
+    }
+    return builder.length();
+  }
+
+  @Benchmark
+  public int codeWriter() throws IOException {
+    builder.setLength(0);
+    final CodeWriter writer = new CodeWriter(builder);
+    for (int i = 0; i < lines; i++) {
+      if (i % depth == 0) {
+        while (writer.getIndent() > 0) {
+          writer.indentOut();
+        }
+      } else {
+        writer.indentIn();
+      }
+      writer.lines(JS_DOC);
+      writer.indent().append(LINE).nl2();
+    }
+    return builder.length();
+  }
+
+  @Benchmark
+  public int allocating() {
+    builder.setLength(0);
+    for (int i = 0; i < lines; i++) {
+      final int indent = i % depth;
+      for (final String row : JS_DOC.split("\n")) {
+        builder.append(new String(new char[indent * 2]).replace('\0', ' '));
+        builder.append(row);
+        builder.append('\n');
+      }
+      builder.append(new String(new char[indent * 2]).replace('\0', ' '));
+      builder.append(LINE);
+      builder.append(new String(new char[2]).replace('\0', '\n'));
+    }
+    return builder.length();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output.jsni;
+
+import gruifo.Corpus;
+import gruifo.lang.js.JsFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks transforming parsed JavaScript files to Java classes with
+ * {@link Transformer#transform(JsFile)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformerBenchmark {
+
+  @Param({"10", "100"})
+  private int files;
+
+  @Param({"30"})
+  private int methods;
+
+  private List<JsFile> jsFiles;
+  private Transformer transformer;
+
+  @Setup
+  public void setUp() throws IOException {
+    final File src = Corpus.write(files, methods);
+    jsFiles = Corpus.parse(Corpus.listFiles(src));
+    Corpus.delete(src);
+    transformer = new Transformer();
+  }
+
+  @Benchmark
+  public void transform(final Blackhole blackhole) {
+    for (final JsFile jsFile : jsFiles) {
+      blackhole.consume(transformer.transform(jsFile));
+    }
+  }
+}
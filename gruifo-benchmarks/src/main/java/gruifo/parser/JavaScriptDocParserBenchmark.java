@@ -0,0 +1,73 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.Corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing all JSDoc comments of a synthetic corpus with
+ * {@link JavaScriptDocParser#parse(String, String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JavaScriptDocParserBenchmark {
+
+  @Param({"10", "100"})
+  private int files;
+
+  @Param({"30"})
+  private int methods;
+
+  private List<String> jsDocs;
+  private JavaScriptDocParser parser;
+
+  @Setup
+  public void setUp() throws IOException {
+    final File src = Corpus.write(files, methods);
+    jsDocs = Corpus.jsDocs(Corpus.listFiles(src));
+    Corpus.delete(src);
+    parser = new JavaScriptDocParser();
+  }
+
+  @Benchmark
+  public void parse(final Blackhole blackhole) {
+    for (final String jsDoc : jsDocs) {
+      blackhole.consume(parser.parse("benchmark.js", jsDoc));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.Corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mozilla.javascript.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing many small JavaScript files with Rhino, with a new
+ * environment per file against the per thread environment of
+ * {@link ParserFactory}. Run with <code>-prof gc</code> to see the difference
+ * in allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserFactoryBenchmark {
+
+  @Param({"500"})
+  private int files;
+
+  @Param({"1"})
+  private int methods;
+
+  private final List<String> sources = new ArrayList<>();
+  private final ParserFactory parserFactory = new ParserFactory();
+
+  @Setup
+  public void setUp() throws IOException {
+    final File src = Corpus.write(files, methods);
+    for (final File file : Corpus.listFiles(src)) {
+      sources.add(new String(Files.readAllBytes(file.toPath()),
+          StandardCharsets.UTF_8));
+    }
+    Corpus.delete(src);
+  }
+
+  @Benchmark
+  public void newEnvirons(final Blackhole blackhole) {
+    for (final String source : sources) {
+      blackhole.consume(new Parser(ParserFactory.createEnvirons())
+          .parse(source, "benchmark.js", 1));
+    }
+  }
+
+  @Benchmark
+  public void factory(final Blackhole blackhole) {
+    for (final String source : sources) {
+      blackhole.consume(parserFactory.parse(source, "benchmark.js"));
+    }
+  }
+}
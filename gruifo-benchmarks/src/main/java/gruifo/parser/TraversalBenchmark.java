@@ -0,0 +1,95 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.Corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mozilla.javascript.ast.AstRoot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks visiting only the root statements against visiting all nodes in
+ * {@link JavaScriptFileParser}, on already parsed syntax trees. Both return
+ * the number of visited nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraversalBenchmark {
+
+  @Param({"500"})
+  private int files;
+
+  @Param({"30"})
+  private int methods;
+
+  private final List<AstRoot> roots = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    final ParserFactory parserFactory = new ParserFactory();
+    final File src = Corpus.write(files, methods);
+    for (final File file : Corpus.listFiles(src)) {
+      roots.add(parserFactory.parse(new String(
+          Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+          file.getPath()));
+    }
+    Corpus.delete(src);
+  }
+
+  @Benchmark
+  public long allNodes() {
+    return visit(false);
+  }
+
+  @Benchmark
+  public long rootOnly() {
+    return visit(true);
+  }
+
+  private long visit(final boolean rootOnly) {
+    long nodes = 0;
+    for (final AstRoot root : roots) {
+      final JavaScriptFileParser parser =
+          new JavaScriptFileParser(root.getSourceName(), rootOnly);
+      root.visitAll(parser);
+      parser.getFiles();
+      nodes += parser.getVisitedNodes();
+    }
+    return nodes;
+  }
+}
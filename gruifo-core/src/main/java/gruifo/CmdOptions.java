@@ -15,11 +15,17 @@
  */
 package gruifo;
 
+import gruifo.output.jsni.JSNIPrinter;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -46,6 +52,26 @@ class CmdOptions {
   private static final String TARGET_PATH_ARG = "directory";
   private static final String TYPE_MAPPING = "type_mapping";
   private static final String TYPE_MAPPING_ARG = "file";
+  private static final String THREADS = "threads";
+  private static final String THREADS_ARG = "number";
+  private static final String INCREMENTAL = "incremental";
+  private static final String SKIP_UNCHANGED = "skip_unchanged";
+  private static final String CACHE = "cache";
+  private static final String CACHE_ARG = "directory";
+  private static final String CACHE_SIZE = "cache_size";
+  private static final String CACHE_SIZE_ARG = "megabytes";
+  private static final String DEFAULT_CACHE_SIZE = "256";
+  private static final String MAX_OVERLOADS = "max_overloads";
+  private static final String MAX_OVERLOADS_ARG = "number";
+  private static final String INCLUDE = "include";
+  private static final String EXCLUDE = "exclude";
+  private static final String PATTERN_ARG = "glob;...";
+  private static final String WATCH = "watch";
+  private static final String METRICS = "metrics";
+  private static final String METRICS_ARG = "file";
+  private static final String ENCODING = "encoding";
+  private static final String ENCODING_ARG = "charset";
+  private static final long MEGABYTE = 1024 * 1024;
 
   private static final Option HELP_OPTION =
       new Option(HELP, "print this message");
@@ -59,6 +85,30 @@ class CmdOptions {
       new Option(TARGET_PATH, true, "output directory");
   private static final Option TYPE_MAPPING_OPTION =
       new Option(TYPE_MAPPING, true, "properties file with type mapping");
+  private static final Option THREADS_OPTION = new Option(THREADS, true,
+      "number of threads to parse and print files, default 1");
+  private static final Option INCREMENTAL_OPTION =
+      new Option(INCREMENTAL, "only generate files changed since previous run");
+  private static final Option SKIP_UNCHANGED_OPTION =
+      new Option(SKIP_UNCHANGED, "don't write files with unchanged content");
+  private static final Option CACHE_OPTION =
+      new Option(CACHE, true, "directory to cache parsed files in");
+  private static final Option CACHE_SIZE_OPTION = new Option(CACHE_SIZE, true,
+      "maximum size of the cache in megabytes, default " + DEFAULT_CACHE_SIZE);
+  private static final Option MAX_OVERLOADS_OPTION = new Option(MAX_OVERLOADS,
+      true, "maximum number of overloads generated for a method, default "
+          + JSNIPrinter.DEFAULT_MAX_OVERLOADS);
+  private static final Option INCLUDE_OPTION = new Option(INCLUDE, true,
+      "one or more ; separated glob patterns of files to include");
+  private static final Option EXCLUDE_OPTION = new Option(EXCLUDE, true,
+      "one or more ; separated glob patterns of files and directories"
+          + " to exclude");
+  private static final Option WATCH_OPTION = new Option(WATCH,
+      "keep running and generate files again when source files change");
+  private static final Option METRICS_OPTION =
+      new Option(METRICS, true, "file to write the run metrics to as JSON");
+  private static final Option ENCODING_OPTION = new Option(ENCODING, true,
+      "charset of the source files, default UTF-8");
 
   private final Options options;
   private final CommandLine cmd;
@@ -76,6 +126,25 @@ class CmdOptions {
     options.addOption(TARGET_PATH_OPTION);
     options.addOption(TYPE_MAPPING_OPTION);
     TYPE_MAPPING_OPTION.setArgName(TYPE_MAPPING_ARG);
+    THREADS_OPTION.setArgName(THREADS_ARG);
+    options.addOption(THREADS_OPTION);
+    options.addOption(INCREMENTAL_OPTION);
+    options.addOption(SKIP_UNCHANGED_OPTION);
+    CACHE_OPTION.setArgName(CACHE_ARG);
+    options.addOption(CACHE_OPTION);
+    CACHE_SIZE_OPTION.setArgName(CACHE_SIZE_ARG);
+    options.addOption(CACHE_SIZE_OPTION);
+    MAX_OVERLOADS_OPTION.setArgName(MAX_OVERLOADS_ARG);
+    options.addOption(MAX_OVERLOADS_OPTION);
+    INCLUDE_OPTION.setArgName(PATTERN_ARG);
+    options.addOption(INCLUDE_OPTION);
+    EXCLUDE_OPTION.setArgName(PATTERN_ARG);
+    options.addOption(EXCLUDE_OPTION);
+    options.addOption(WATCH_OPTION);
+    METRICS_OPTION.setArgName(METRICS_ARG);
+    options.addOption(METRICS_OPTION);
+    ENCODING_OPTION.setArgName(ENCODING_ARG);
+    options.addOption(ENCODING_OPTION);
     final CommandLineParser parser = new GnuParser();
     cmd = parser.parse(options, args);
   }
@@ -89,6 +158,26 @@ class CmdOptions {
     return dirs;
   }
 
+  public List<String> getIncludes() {
+    return getPatterns(INCLUDE);
+  }
+
+  public List<String> getExcludes() {
+    return getPatterns(EXCLUDE);
+  }
+
+  private List<String> getPatterns(final String option) {
+    final List<String> patterns = new ArrayList<>();
+    if (cmd.hasOption(option)) {
+      for (final String pattern : cmd.getOptionValue(option).split(";")) {
+        if (!pattern.isEmpty()) {
+          patterns.add(pattern);
+        }
+      }
+    }
+    return patterns;
+  }
+
   public File getTargetDir() throws FileNotFoundException {
     return getPath(cmd.getOptionValue(TARGET_PATH), TARGET_PATH);
   }
@@ -104,6 +193,11 @@ class CmdOptions {
     return file;
   }
 
+  public File getTypeMappingFile() {
+    return cmd.hasOption(TYPE_MAPPING)
+        ? new File(cmd.getOptionValue(TYPE_MAPPING)) : null;
+  }
+
   public Properties getTypeMappingProperties()
       throws FileNotFoundException, IOException {
     final Properties props = new Properties();
@@ -118,6 +212,87 @@ class CmdOptions {
     return props;
   }
 
+  public int getThreads() throws ParseException {
+    final String threads = cmd.getOptionValue(THREADS, "1");
+    try {
+      final int nrOfThreads = Integer.parseInt(threads);
+      if (nrOfThreads < 1) {
+        throw new ParseException(
+            "-" + THREADS + " must be at least 1, got: " + threads);
+      }
+      return nrOfThreads;
+    } catch (final NumberFormatException e) {
+      throw new ParseException(
+          "-" + THREADS + " is not a number: " + threads);
+    }
+  }
+
+  public int getMaxOverloads() throws ParseException {
+    final String maxOverloads = cmd.getOptionValue(MAX_OVERLOADS,
+        String.valueOf(JSNIPrinter.DEFAULT_MAX_OVERLOADS));
+    try {
+      final int max = Integer.parseInt(maxOverloads);
+      if (max < 1) {
+        throw new ParseException(
+            "-" + MAX_OVERLOADS + " must be at least 1, got: " + maxOverloads);
+      }
+      return max;
+    } catch (final NumberFormatException e) {
+      throw new ParseException(
+          "-" + MAX_OVERLOADS + " is not a number: " + maxOverloads);
+    }
+  }
+
+  public Charset getEncoding() throws ParseException {
+    if (!cmd.hasOption(ENCODING)) {
+      return StandardCharsets.UTF_8;
+    }
+    final String encoding = cmd.getOptionValue(ENCODING);
+    try {
+      return Charset.forName(encoding);
+    } catch (final IllegalCharsetNameException
+        | UnsupportedCharsetException e) {
+      throw new ParseException(
+          "-" + ENCODING + " is not a supported charset: " + encoding);
+    }
+  }
+
+  public File getMetricsFile() {
+    return cmd.hasOption(METRICS) ? new File(cmd.getOptionValue(METRICS))
+        : null;
+  }
+
+  public File getCacheDir() {
+    return cmd.hasOption(CACHE) ? new File(cmd.getOptionValue(CACHE)) : null;
+  }
+
+  public long getCacheSize() throws ParseException {
+    final String cacheSize = cmd.getOptionValue(CACHE_SIZE, DEFAULT_CACHE_SIZE);
+    try {
+      final long size = Long.parseLong(cacheSize);
+      if (size < 1) {
+        throw new ParseException(
+            "-" + CACHE_SIZE + " must be at least 1, got: " + cacheSize);
+      }
+      return size * MEGABYTE;
+    } catch (final NumberFormatException e) {
+      throw new ParseException(
+          "-" + CACHE_SIZE + " is not a number: " + cacheSize);
+    }
+  }
+
+  public boolean isIncremental() {
+    return cmd.hasOption(INCREMENTAL);
+  }
+
+  public boolean isSkipUnchanged() {
+    return cmd.hasOption(SKIP_UNCHANGED);
+  }
+
+  public boolean isWatch() {
+    return cmd.hasOption(WATCH);
+  }
+
   public boolean isJSInterop() {
     return cmd.hasOption(JSINTEROP);
   }
@@ -15,29 +15,46 @@
  */
 package gruifo;
 
+import gruifo.cache.ParseCache;
+import gruifo.incremental.BuildStamp;
+import gruifo.incremental.ContentHash;
+import gruifo.incremental.IncrementalBuild;
 import gruifo.lang.js.JsElement;
 import gruifo.lang.js.JsFile;
 import gruifo.lang.js.JsMethod;
 import gruifo.lang.js.JsParam;
+import gruifo.metrics.Metrics;
+import gruifo.metrics.Metrics.Counter;
+import gruifo.metrics.Metrics.Phase;
 import gruifo.output.FilePrinter;
+import gruifo.output.OutputWriter;
 import gruifo.output.jsinterop.JsInteropPrinter;
 import gruifo.output.jsni.JSNIPrinter;
+import gruifo.output.jsni.TypeMapper;
 import gruifo.parser.JavaScriptFileParser;
+import gruifo.parser.JsTypeCache;
+import gruifo.parser.ParsedFile;
+import gruifo.parser.ParserFactory;
+import gruifo.parser.SourceReader;
+import gruifo.parser.SymbolTable;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import org.mozilla.javascript.CompilerEnvirons;
-import org.mozilla.javascript.Parser;
 import org.mozilla.javascript.ast.AstRoot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,72 +64,489 @@ import org.slf4j.LoggerFactory;
  */
 public class Controller {
 
-  private static final String JAVA_SCRIPT_EXT = "js";
-  private static final String JAVA_EXT = ".java";
-
   private static final Logger LOG = LoggerFactory.getLogger(Controller.class);
 
   private final List<File> srcPaths;
   private final File outputPath;
+  private final List<File> settingsFiles = new ArrayList<>();
+  private final SourceScanner scanner = new SourceScanner();
+  private final Metrics metrics = new Metrics();
+  private File metricsFile;
+  private int threads = 1;
+  private boolean incremental;
+  private boolean skipUnchanged;
+  private boolean skipUpToDate;
+  private ParseCache parseCache;
+  private final JsTypeCache typeCache = new JsTypeCache();
+  private SourceReader sourceReader = new SourceReader();
+  private final ParserFactory parserFactory = new ParserFactory();
+  private SymbolTable symbolTable;
+  private TypeMapper typeMapper = new TypeMapper();
+  private int maxOverloads = JSNIPrinter.DEFAULT_MAX_OVERLOADS;
 
   public Controller(final List<File> srcPaths, final File outputPath) {
     this.srcPaths = srcPaths;
     this.outputPath = outputPath;
   }
 
-  public void run(final OutputType outputType) {
+  /**
+   * Sets the number of threads used to parse the JavaScript files and to print
+   * the Java files. With 1, the default, all work is done sequentially on the
+   * calling thread.
+   * @param threads number of threads
+   */
+  public void setThreads(final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+          "Number of threads must be at least 1, got: " + threads);
+    }
+    this.threads = threads;
+    scanner.setThreads(threads);
+  }
+
+  /**
+   * Adds a glob pattern of JavaScript files to include. If no patterns are
+   * added all JavaScript files in the source paths are included.
+   * @param glob glob pattern
+   * @see SourceScanner
+   */
+  public void addInclude(final String glob) {
+    scanner.addInclude(glob);
+  }
+
+  /**
+   * Adds a glob pattern of JavaScript files and directories to exclude.
+   * @param glob glob pattern
+   * @see SourceScanner
+   */
+  public void addExclude(final String glob) {
+    scanner.addExclude(glob);
+  }
+
+  /**
+   * Sets incremental mode. In incremental mode only JavaScript files changed
+   * since the previous run are generated. What was generated is stored in a
+   * manifest in the output directory.
+   * @param incremental true to only generate changed files
+   */
+  public void setIncremental(final boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  /**
+   * Sets if Java files whose content didn't change should be left untouched.
+   * This keeps their modification time, so downstream compilers don't see
+   * them as changed.
+   * @param skipUnchanged true to only write files with changed content
+   */
+  public void setSkipUnchanged(final boolean skipUnchanged) {
+    this.skipUnchanged = skipUnchanged;
+  }
+
+  /**
+   * Sets if the run should be skipped when the sources and settings didn't
+   * change since the previous run. A stamp of the run is kept in the output
+   * directory.
+   * @param skipUpToDate true to skip the run when nothing changed
+   */
+  public void setSkipUpToDate(final boolean skipUpToDate) {
+    this.skipUpToDate = skipUpToDate;
+  }
+
+  /**
+   * Sets the charset of the JavaScript files. By default files are read as
+   * UTF-8, independent of the platform default charset.
+   * @param charset charset of the JavaScript files
+   */
+  public void setSourceEncoding(final Charset charset) {
+    sourceReader = new SourceReader(charset);
+  }
+
+  /**
+   * Sets the cache to store parsed JavaScript files in. Unchanged files found
+   * in the cache are not parsed again.
+   * @param parseCache cache or null to not use a cache
+   */
+  public void setParseCache(final ParseCache parseCache) {
+    this.parseCache = parseCache;
+  }
+
+  /**
+   * Sets the type mapper used when printing JSNI files. By default only the
+   * default type mappings are used.
+   * @param typeMapper type mapper
+   */
+  public void setTypeMapper(final TypeMapper typeMapper) {
+    this.typeMapper = typeMapper;
+  }
+
+  /**
+   * Sets the maximum number of overloads generated for a single JSNI method.
+   * Methods with more combinations of optional and union typed parameters
+   * get JavaScriptObject parameters instead of the union types.
+   * @param maxOverloads maximum number of overloads per method
+   */
+  public void setMaxOverloads(final int maxOverloads) {
+    if (maxOverloads < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of overloads must be at least 1, got: "
+              + maxOverloads);
+    }
+    this.maxOverloads = maxOverloads;
+  }
+
+  /**
+   * Returns the metrics recorded during the runs of this controller.
+   * @return metrics
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the file to write the metrics to as JSON at the end of a run.
+   * @param metricsFile file or null to not write the metrics
+   */
+  public void setMetricsFile(final File metricsFile) {
+    this.metricsFile = metricsFile;
+  }
+
+  /**
+   * Adds a file with settings used during generation, like the type mapping
+   * file. In incremental mode all files are generated when one of these files
+   * changed.
+   * @param settingsFile file with settings
+   */
+  public void addSettingsFile(final File settingsFile) {
+    settingsFiles.add(settingsFile);
+  }
+
+  /**
+   * Generates the Java files for the given output type.
+   * @param outputType type of Java files to generate
+   * @return true if files were generated, false if the output was up to date
+   */
+  public boolean run(final OutputType outputType) {
+    return run(createPrinter(outputType));
+  }
+
+  /**
+   * Generates the Java files for the given output type, and keeps watching
+   * the source paths to generate the Java files of changed JavaScript files
+   * again. Only returns when the thread is interrupted.
+   * @param outputType type of Java files to generate
+   * @throws IOException
+   * @see Watcher
+   */
+  public void watch(final OutputType outputType) throws IOException {
+    new Watcher(this, createPrinter(outputType)).watch();
+  }
+
+  FilePrinter createPrinter(final OutputType outputType) {
     final FilePrinter fp;
     if (outputType == OutputType.JSI) {
       fp = new JsInteropPrinter();
     } else if (outputType == OutputType.JSNI) {
-      fp = new JSNIPrinter();
+      final JSNIPrinter jsniPrinter = new JSNIPrinter(typeMapper);
+      jsniPrinter.setMaxOverloads(maxOverloads);
+      jsniPrinter.setMetrics(metrics);
+      fp = jsniPrinter;
     } else {
       throw new RuntimeException("Output type '" + outputType
           + "' not supported");
     }
-    run(fp);
+    return fp;
+  }
+
+  /**
+   * Generates the Java files with the given printer.
+   * @param printer printer to print the Java files with
+   * @return true if files were generated, false if the output was up to date
+   */
+  public boolean run(final FilePrinter printer) {
+    final long start = System.nanoTime();
+    final List<File> files = scanFiles();
+    final BuildStamp stamp = skipUpToDate ? createStamp(printer, files) : null;
+    if (stamp != null && stamp.isUpToDate()) {
+      LOG.info("Sources and settings unchanged, nothing generated.");
+      finishMetrics(start);
+      return false;
+    } else if (stamp != null) {
+      stamp.invalidate();
+    }
+    IncrementalBuild build = incremental ? startIncremental(printer) : null;
+    List<File> filesToParse = files;
+    if (build != null) {
+      try {
+        filesToParse = build.filterChanged(files);
+        LOG.info("Incremental: {} of {} files changed.", filesToParse.size(),
+            files.size());
+      } catch (final IOException e) {
+        LOG.error("Exception checking for changed files, "
+            + "all files will be generated", e);
+        build = null;
+      }
+    }
+    // Results are merged in the order of the scanned files, so the outcome
+    // doesn't depend on the number of threads used to parse.
+    final List<ParsedFile> parsedFiles = parseFiles(filesToParse);
+    if (build != null) {
+      parseDependent(build, filesToParse, parsedFiles);
+    }
+    final List<JsFile> jsFiles = merge(parsedFiles);
+    writeFiles(printer, jsFiles, outputPath);
+    if (build != null) {
+      finishIncremental(build, printer, jsFiles);
+    }
+    if (stamp != null) {
+      saveStamp(stamp, build == null ? getOutputs(printer, jsFiles)
+          : build.getOutputs());
+    }
+    finishMetrics(start);
+    return true;
+  }
+
+  /**
+   * Scans the source paths for JavaScript files.
+   * @return JavaScript files found, sorted
+   */
+  List<File> scanFiles() {
+    final long start = System.nanoTime();
+    final List<File> files = scanner.scan(srcPaths);
+    metrics.addTime(Phase.SCAN, null, System.nanoTime() - start);
+    metrics.add(Counter.FILES_SCANNED, null, files.size());
+    return files;
   }
 
-  public void run(final FilePrinter printer) {
+  /**
+   * Parses the unchanged files linked via statics to the changed files, so
+   * statics are attached as in a complete run.
+   */
+  private void parseDependent(final IncrementalBuild build,
+      final List<File> files, final List<ParsedFile> parsedFiles) {
+    List<File> dependent = files;
+    List<ParsedFile> parsedDependent = parsedFiles;
+    do {
+      for (int i = 0; i < dependent.size(); i++) {
+        build.setSymbols(dependent.get(i),
+            SymbolTable.getDefines(parsedDependent.get(i)),
+            SymbolTable.getUses(parsedDependent.get(i)));
+      }
+      dependent = build.filterDependent();
+      if (!dependent.isEmpty()) {
+        LOG.info("Incremental: {} unchanged files linked via statics.",
+            dependent.size());
+      }
+      parsedDependent = parseFiles(dependent);
+      parsedFiles.addAll(parsedDependent);
+    } while (!dependent.isEmpty());
+  }
+
+  /**
+   * Merges parse results in the given order and runs the passes that need
+   * the results of all files. Static methods and constants are attached to
+   * their class, also if the class is defined in another file. Statics
+   * attached by a previous merge are removed first, so the same parse results
+   * can be merged again.
+   * @param parsedFiles parse results
+   * @return all JavaScript files to generate Java files for
+   */
+  List<JsFile> merge(final Collection<ParsedFile> parsedFiles) {
+    if (symbolTable != null) {
+      symbolTable.detach();
+    }
+    final SymbolTable table = new SymbolTable();
     final List<JsFile> jsFiles = new ArrayList<>();
-    final List<JsMethod> staticMethods = new ArrayList<>();
-    final Map<String, JsElement> staticConsts = new HashMap<>();
+    for (final ParsedFile parsedFile : parsedFiles) {
+      jsFiles.addAll(parsedFile.getJsFiles());
+      table.addFiles(parsedFile.getJsFiles());
+    }
+    for (final ParsedFile parsedFile : parsedFiles) {
+      table.attach(parsedFile);
+    }
+    symbolTable = table;
+    if (parseCache != null) {
+      LOG.info("Parse cache: {} hits, {} misses.", parseCache.getHits(),
+          parseCache.getMisses());
+    }
+    LOG.info("Type cache: {} hits, {} misses, {} types.", typeCache.getHits(),
+        typeCache.getMisses(), typeCache.size());
+    processStaticConsts(table.getMissedConsts());
+    processStaticMethods(table.getMissedMethods());
+    return jsFiles;
+  }
 
-    for (final File srcPath : srcPaths) {
-      final List<File> files = new ArrayList<>();
-      scanJsFiles(files, srcPath);
-      for (final File file : files) {
-        try {
-          jsFiles.addAll(prepareFiles(
-              parseFile(file.getPath(), staticMethods, staticConsts)));
-        } catch (final IOException e) {
-          LOG.error("Exception parsing file:" + file, e);
-        }
+  /**
+   * Returns the symbol table of the last merge.
+   * @return symbol table or null if not merged yet
+   */
+  SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
+  File getOutputPath() {
+    return outputPath;
+  }
+
+  List<File> getSrcPaths() {
+    return srcPaths;
+  }
+
+  SourceScanner getScanner() {
+    return scanner;
+  }
+
+  private void finishMetrics(final long start) {
+    metrics.setWallTime(System.nanoTime() - start);
+    LOG.info(metrics.getSummary());
+    if (metricsFile != null) {
+      try (final Writer writer = Files.newBufferedWriter(metricsFile.toPath(),
+          StandardCharsets.UTF_8)) {
+        metrics.writeJson(writer);
+      } catch (final IOException e) {
+        LOG.error("Exception writing metrics file:" + metricsFile, e);
       }
     }
-    processStaticConsts(staticConsts);
-    processStaticMethods(staticMethods);
-    writeFiles(printer, jsFiles, outputPath);
   }
 
   /**
-   * Scans the srcPath for JavaScript files and adds them to the files list.
+   * Returns a fingerprint of all settings that influence the generated files.
+   */
+  private String getSettings(final FilePrinter printer) throws IOException {
+    final StringBuilder settings = new StringBuilder(Version.get());
+    settings.append('\n').append(printer.getClass().getName());
+    settings.append('\n').append(maxOverloads);
+    settings.append('\n').append(sourceReader.getCharset().name());
+    for (final File settingsFile : settingsFiles) {
+      settings.append('\n').append(settingsFile.getAbsolutePath());
+      if (settingsFile.isFile()) {
+        settings.append(' ').append(ContentHash.of(settingsFile));
+      }
+    }
+    return ContentHash.of(settings.toString());
+  }
+
+  private BuildStamp createStamp(final FilePrinter printer,
+      final List<File> files) {
+    try {
+      return new BuildStamp(outputPath, getSettings(printer), files);
+    } catch (final IOException e) {
+      LOG.error("Exception checking if output is up to date, "
+          + "all files will be generated", e);
+      return null;
+    }
+  }
+
+  private void saveStamp(final BuildStamp stamp,
+      final Collection<String> outputs) {
+    try {
+      stamp.save(outputs);
+    } catch (final IOException e) {
+      LOG.error("Exception writing build stamp", e);
+    }
+  }
+
+  private IncrementalBuild startIncremental(final FilePrinter printer) {
+    try {
+      return new IncrementalBuild(outputPath, getSettings(printer));
+    } catch (final IOException e) {
+      LOG.error("Exception reading settings file, all files will be generated",
+          e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the paths of the Java files generated for the given files,
+   * relative to the output directory.
+   */
+  private static List<String> getOutputs(final FilePrinter printer,
+      final List<JsFile> jsFiles) {
+    final List<String> outputs = new ArrayList<>(jsFiles.size());
+    for (final JsFile jsFile : jsFiles) {
+      if (!printer.ignored(jsFile)) {
+        outputs.add(OutputWriter.getRelativePath(jsFile));
+      }
+    }
+    return outputs;
+  }
+
+  private void finishIncremental(final IncrementalBuild build,
+      final FilePrinter printer, final List<JsFile> jsFiles) {
+    for (final JsFile jsFile : jsFiles) {
+      if (!printer.ignored(jsFile)) {
+        build.addOutput(jsFile.getOriginalFileName(),
+            OutputWriter.getRelativePath(jsFile));
+      }
+    }
+    try {
+      build.finish();
+    } catch (final IOException e) {
+      LOG.error("Exception writing incremental build manifest", e);
+    }
+  }
+
+  /**
+   * Parses all files, in parallel if more than 1 thread is configured. The
+   * returned list has the same order as the given files.
    *
-   * @param files list of JavaScript files found
-   * @param srcPath source path to search for files
+   * @param files JavaScript files to parse
+   * @return parse result per file
    */
-  void scanJsFiles(final List<File> files, final File srcPath) {
-    if (srcPath.isFile()) {
-      files.add(srcPath);
+  List<ParsedFile> parseFiles(final List<File> files) {
+    final List<ParsedFile> parsedFiles = new ArrayList<>(files.size());
+    if (threads == 1 || files.size() < 2) {
+      for (final File file : files) {
+        parsedFiles.add(parseAndPrepareFile(file));
+      }
     } else {
-      for (final File file : srcPath.listFiles()) {
-        if (file.isDirectory()) {
-          scanJsFiles(files, file);
-        } else if (file.getPath().endsWith(JAVA_SCRIPT_EXT)) {
-          files.add(file);
+      final ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        final List<Callable<ParsedFile>> tasks = new ArrayList<>(files.size());
+        for (final File file : files) {
+          tasks.add(new Callable<ParsedFile>() {
+            @Override
+            public ParsedFile call() {
+              return parseAndPrepareFile(file);
+            }
+          });
+        }
+        for (final Future<ParsedFile> future : pool.invokeAll(tasks)) {
+          parsedFiles.add(future.get());
         }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while parsing files", e);
+      } catch (final ExecutionException e) {
+        throw new RuntimeException("Exception parsing files", e.getCause());
+      } finally {
+        pool.shutdown();
       }
     }
+    return parsedFiles;
+  }
+
+  private ParsedFile parseAndPrepareFile(final File file) {
+    final ParsedFile parsedFile = new ParsedFile();
+    try {
+      final String cacheKey =
+          parseCache == null ? null : ParseCache.getKey(file,
+              sourceReader.getCharset());
+      if (cacheKey != null) {
+        final ParsedFile cached = parseCache.get(cacheKey);
+        if (cached != null) {
+          return cached;
+        }
+      }
+      parsedFile.getJsFiles().addAll(prepareFiles(parseFile(file.getPath(),
+          parsedFile.getStaticMethods(), parsedFile.getStaticConsts())));
+      if (cacheKey != null) {
+        parseCache.put(cacheKey, parsedFile);
+      }
+    } catch (final IOException e) {
+      LOG.error("Exception parsing file:" + file, e);
+    }
+    return parsedFile;
   }
 
   /**
@@ -128,18 +562,21 @@ public class Controller {
       final List<JsMethod> staticMethods,
       final Map<String, JsElement> staticFields)
           throws FileNotFoundException, IOException {
-    try (final Reader reader = new FileReader(fileName)) {
-      final CompilerEnvirons env = new CompilerEnvirons();
-      env.setRecordingLocalJsDocComments(true);
-      env.setAllowSharpComments(true);
-      env.setRecordingComments(true);
-      final AstRoot node = new Parser(env).parse(reader, fileName, 1);
-      final JavaScriptFileParser parser = new JavaScriptFileParser(fileName);
-      node.visitAll(parser);
-      staticMethods.addAll(parser.getStaticMethods());
-      staticFields.putAll(parser.getConsts());
-      return parser.getFiles();
-    }
+    final long start = System.nanoTime();
+    final String source = sourceReader.read(new File(fileName));
+    final AstRoot node = parserFactory.parse(source, fileName);
+    final long parsed = System.nanoTime();
+    metrics.addTime(Phase.PARSE, fileName, parsed - start);
+    final JavaScriptFileParser parser =
+        new JavaScriptFileParser(fileName, true, typeCache);
+    node.visitAll(parser);
+    metrics.addTime(Phase.JSDOC, fileName, System.nanoTime() - parsed);
+    metrics.add(Counter.FILES_PARSED, fileName, 1);
+    metrics.add(Counter.AST_NODES, fileName, parser.getVisitedNodes());
+    metrics.add(Counter.CLASSES, fileName, parser.getFiles().size());
+    staticMethods.addAll(parser.getStaticMethods());
+    staticFields.putAll(parser.getConsts());
+    return parser.getFiles();
   }
 
   /**
@@ -153,46 +590,68 @@ public class Controller {
 
   /**
    * Remove any fields specified in @typedef if the field is also specified as
-   * prototype field in the JavaScript file.
+   * prototype field in the JavaScript file. Each prototype field removes the
+   * first @typedef field with the same name. The prototype fields are counted
+   * by name, so the @typedef fields are filtered in a single pass.
    *
    * @param files JavaScript parsed files
    * @return same list of JavaScript parsed files
    */
-  private Collection<JsFile> prepareFields(final Collection<JsFile> files) {
+  Collection<JsFile> prepareFields(final Collection<JsFile> files) {
     for (final JsFile jsFile : files) {
-      if (jsFile.getElement().isTypeDef()) {
-        final List<JsParam> typeDefs = jsFile.getElement().getTypeDef();
-        for (final JsParam field : jsFile.getFields()) {
-          for (int i = 0; i < typeDefs.size(); i++) {
-            if (field.getName().equals(typeDefs.get(i).getName())) {
-              typeDefs.remove(i);
-              break;
-            }
-          }
-        }
+      if (jsFile.getElement().isTypeDef() && !jsFile.getFields().isEmpty()) {
+        removeTypeDefFields(jsFile.getElement().getTypeDef(),
+            jsFile.getFields());
       }
     }
     return files;
   }
 
+  private static void removeTypeDefFields(final List<JsParam> typeDefs,
+      final List<JsParam> fields) {
+    final Map<String, Integer> fieldNames = new HashMap<>(fields.size() * 2);
+    for (final JsParam field : fields) {
+      final Integer count = fieldNames.get(field.getName());
+      fieldNames.put(field.getName(), count == null ? 1 : count + 1);
+    }
+    final List<JsParam> kept = new ArrayList<>(typeDefs.size());
+    for (final JsParam typeDef : typeDefs) {
+      final Integer count = fieldNames.get(typeDef.getName());
+      if (count == null) {
+        kept.add(typeDef);
+      } else if (count == 1) {
+        fieldNames.remove(typeDef.getName());
+      } else {
+        fieldNames.put(typeDef.getName(), count - 1);
+      }
+    }
+    if (kept.size() < typeDefs.size()) {
+      typeDefs.clear();
+      typeDefs.addAll(kept);
+    }
+  }
+
   /**
+   * Nests classes in the class their package name refers to, if that class is
+   * in the same file. For example <code>ol.Map.Options</code> is nested in
+   * <code>ol.Map</code>. Classes are looked up on their fully qualified name,
+   * so classes are nested to any depth in linear time.
    *
-   * @param files
-   * @return
+   * @param files classes of a single JavaScript file
+   * @return top level classes
    */
   Collection<JsFile> groupFiles(final Collection<JsFile> files) {
-    final Map<String, JsFile> filesMap = new HashMap<>();
+    final Map<String, JsFile> filesMap = new HashMap<>(files.size() * 2);
     for (final JsFile jsFile : files) {
-      filesMap.put(jsFile.getClassOrInterfaceName(), jsFile);
+      filesMap.put(jsFile.getFullClassName(), jsFile);
     }
     final Collection<JsFile> groupedFiles = new ArrayList<>();
     for (final JsFile jsFile : files) {
-      final String[] split = jsFile.getPackageName().split("\\.");
-      if (split.length > 0 && filesMap.containsKey(split[split.length - 1])) {
-        final JsFile jsFile2 = filesMap.get(split[split.length - 1]);
-        jsFile2.addInnerJsFile(jsFile);
-      } else {
+      final JsFile outer = filesMap.get(jsFile.getPackageName());
+      if (outer == null) {
         groupedFiles.add(jsFile);
+      } else {
+        outer.addInnerJsFile(jsFile);
       }
     }
     return groupedFiles;
@@ -211,21 +670,9 @@ public class Controller {
 
   void writeFiles(final FilePrinter printer, final Collection<JsFile> jsFiles,
       final File outputPath) {
-    for (final JsFile jsFile : jsFiles) {
-      if (!printer.ignored(jsFile)) {
-        final String packagePath = jsFile.getPackageName().replace('.', '/');
-        final File path = new File(outputPath, packagePath);
-        path.mkdirs();
-        try {
-          try (final FileWriter writer = new FileWriter(new File(path,
-              jsFile.getClassOrInterfaceName() + JAVA_EXT))) {
-            writer.append(printer.printFile(jsFile));
-            writer.flush();
-          }
-        } catch (final IOException e) {
-          LOG.error("Exception parsing file:" + jsFile.getOriginalFileName(), e);
-        }
-      }
-    }
+    final OutputWriter writer = new OutputWriter(printer, outputPath, threads);
+    writer.setMetrics(metrics);
+    writer.setSkipUnchanged(skipUnchanged);
+    writer.writeFiles(jsFiles);
   }
 }
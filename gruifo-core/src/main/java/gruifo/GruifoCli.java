@@ -15,9 +15,7 @@
  */
 package gruifo;
 
-import gruifo.output.FilePrinter;
-import gruifo.output.jsinterop.JsInteropPrinter;
-import gruifo.output.jsni.JSNIPrinter;
+import gruifo.cache.ParseCache;
 import gruifo.output.jsni.TypeMapper;
 
 import java.io.IOException;
@@ -39,21 +37,35 @@ public final class GruifoCli {
     if (cmdOptions.printIfInfoOption()) {
       return;
     }
-    final FilePrinter fp = detectFilePrinter(cmdOptions);
-    TypeMapper.INSTANCE.addMappings(cmdOptions.getTypeMappingProperties());
-
     final Controller controller =
         new Controller(cmdOptions.getSourcePaths(), cmdOptions.getTargetDir());
-    controller.run(fp);
-  }
-
-  private static FilePrinter detectFilePrinter(final CmdOptions cmdOptions) {
-    final FilePrinter fp;
-    if (cmdOptions.isJSInterop()) {
-      fp = new JsInteropPrinter();
+    controller.setTypeMapper(
+        new TypeMapper(cmdOptions.getTypeMappingProperties()));
+    controller.setMaxOverloads(cmdOptions.getMaxOverloads());
+    controller.setThreads(cmdOptions.getThreads());
+    controller.setSourceEncoding(cmdOptions.getEncoding());
+    for (final String include : cmdOptions.getIncludes()) {
+      controller.addInclude(include);
+    }
+    for (final String exclude : cmdOptions.getExcludes()) {
+      controller.addExclude(exclude);
+    }
+    controller.setMetricsFile(cmdOptions.getMetricsFile());
+    controller.setIncremental(cmdOptions.isIncremental());
+    controller.setSkipUnchanged(cmdOptions.isSkipUnchanged());
+    if (cmdOptions.getCacheDir() != null) {
+      controller.setParseCache(new ParseCache(cmdOptions.getCacheDir(),
+          cmdOptions.getCacheSize()));
+    }
+    if (cmdOptions.getTypeMappingFile() != null) {
+      controller.addSettingsFile(cmdOptions.getTypeMappingFile());
+    }
+    final OutputType outputType =
+        cmdOptions.isJSInterop() ? OutputType.JSI : OutputType.JSNI;
+    if (cmdOptions.isWatch()) {
+      controller.watch(outputType);
     } else {
-      fp = new JSNIPrinter();
+      controller.run(outputType);
     }
-    return fp;
   }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans source directories for JavaScript files. Only files with the
+ * extension {@value #JAVA_SCRIPT_EXT} are found.
+ *
+ * <p>Include and exclude patterns are globs. A pattern containing a '/' is
+ * matched against the path relative to the source directory, for example
+ * {@code ol/source/**}. A pattern without '/' is matched against the name of
+ * each file and directory, so {@code node_modules} skips all directories with
+ * that name and {@code *.min.js} skips all minified files. Directories
+ * matching an exclude pattern are not walked at all. If include patterns are
+ * given a file must match at least one of them.
+ *
+ * <p>With more than 1 thread the source directories are walked concurrently.
+ * The files found are always returned sorted.
+ */
+public class SourceScanner {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(SourceScanner.class);
+
+  private static final String JAVA_SCRIPT_EXT = ".js";
+  private static final String GLOB = "glob:";
+
+  private final List<Pattern> includes = new ArrayList<>();
+  private final List<Pattern> excludes = new ArrayList<>();
+  private int threads = 1;
+
+  /**
+   * Sets the number of threads to walk the source directories with.
+   * @param threads number of threads
+   */
+  public void setThreads(final int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Adds a pattern of files to include.
+   * @param glob glob pattern
+   * @throws IllegalArgumentException if the pattern is invalid
+   */
+  public void addInclude(final String glob) {
+    includes.add(new Pattern(glob));
+  }
+
+  /**
+   * Adds a pattern of files and directories to exclude.
+   * @param glob glob pattern
+   * @throws IllegalArgumentException if the pattern is invalid
+   */
+  public void addExclude(final String glob) {
+    excludes.add(new Pattern(glob));
+  }
+
+  /**
+   * Returns all JavaScript files in the source paths, sorted. Source paths
+   * that are files are always included.
+   * @param srcPaths source directories or files
+   * @return JavaScript files found
+   */
+  public List<File> scan(final List<File> srcPaths) {
+    final TreeSet<File> files = new TreeSet<>();
+    if (threads == 1 || srcPaths.size() < 2) {
+      for (final File srcPath : srcPaths) {
+        files.addAll(scan(srcPath));
+      }
+    } else {
+      final ExecutorService pool =
+          Executors.newFixedThreadPool(Math.min(threads, srcPaths.size()));
+      try {
+        final List<Callable<List<File>>> tasks = new ArrayList<>();
+        for (final File srcPath : srcPaths) {
+          tasks.add(new Callable<List<File>>() {
+            @Override
+            public List<File> call() {
+              return scan(srcPath);
+            }
+          });
+        }
+        for (final Future<List<File>> future : pool.invokeAll(tasks)) {
+          files.addAll(future.get());
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while scanning files", e);
+      } catch (final ExecutionException e) {
+        throw new RuntimeException("Exception scanning files", e.getCause());
+      } finally {
+        pool.shutdown();
+      }
+    }
+    return new ArrayList<>(files);
+  }
+
+  private List<File> scan(final File srcPath) {
+    if (srcPath.isFile()) {
+      return Collections.singletonList(srcPath);
+    }
+    final List<File> files = new ArrayList<>();
+    final Path root = srcPath.toPath();
+    try {
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+          Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir,
+            final BasicFileAttributes attrs) {
+          return !dir.equals(root) && isExcludedDirectory(root, dir)
+              ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file,
+            final BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && isIncluded(root, file)) {
+            files.add(file.toFile());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file,
+            final IOException e) {
+          LOG.warn("Could not scan {}: {}", file, e.toString());
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (final IOException e) {
+      LOG.error("Exception scanning source path:" + srcPath, e);
+    }
+    return files;
+  }
+
+  /**
+   * Returns true if the directory matches an exclude pattern.
+   * @param root source directory the directory is in
+   * @param dir directory
+   * @return true if excluded
+   */
+  boolean isExcludedDirectory(final Path root, final Path dir) {
+    return matches(excludes, root, dir);
+  }
+
+  private boolean isIncluded(final Path root, final Path file) {
+    return file.getFileName().toString().endsWith(JAVA_SCRIPT_EXT)
+        && (includes.isEmpty() || matches(includes, root, file))
+        && !matches(excludes, root, file);
+  }
+
+  private static boolean matches(final List<Pattern> patterns,
+      final Path root, final Path path) {
+    for (final Pattern pattern : patterns) {
+      if (pattern.matches(root, path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Pattern {
+    private final PathMatcher matcher;
+    private final boolean nameOnly;
+
+    public Pattern(final String glob) {
+      matcher = FileSystems.getDefault().getPathMatcher(GLOB + glob);
+      nameOnly = glob.indexOf('/') < 0;
+    }
+
+    public boolean matches(final Path root, final Path path) {
+      return matcher.matches(
+          nameOnly ? path.getFileName() : root.relativize(path));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Version of gruifo, as set by the build.
+ */
+public final class Version {
+
+  private static final String VERSION_PROPERTIES = "version.properties";
+  private static final String UNKNOWN = "unknown";
+  private static final String VERSION = readVersion();
+
+  private Version() {
+    // util
+  }
+
+  /**
+   * Returns the version of gruifo.
+   * @return version
+   */
+  public static String get() {
+    return VERSION;
+  }
+
+  private static String readVersion() {
+    try (final InputStream is =
+        Version.class.getResourceAsStream(VERSION_PROPERTIES)) {
+      if (is == null) {
+        return UNKNOWN;
+      }
+      final Properties props = new Properties();
+      props.load(is);
+      return props.getProperty("version", UNKNOWN);
+    } catch (final IOException e) {
+      return UNKNOWN;
+    }
+  }
+}
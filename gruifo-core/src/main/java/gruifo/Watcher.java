@@ -0,0 +1,314 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import gruifo.lang.js.JsFile;
+import gruifo.output.FilePrinter;
+import gruifo.output.OutputWriter;
+import gruifo.parser.ParsedFile;
+import gruifo.parser.SymbolTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps generating Java files while JavaScript files change.
+ *
+ * <p>After an initial complete run the parsed files are kept in memory and the
+ * source paths are watched with a {@link WatchService}. Changes are collected
+ * until no new change came in for {@link #QUIET_PERIOD_MS} milliseconds. Then
+ * only the changed JavaScript files are parsed again, the passes over all
+ * files are run again on the parsed files in memory, and the Java files of the
+ * changed JavaScript files are written, together with the Java files of
+ * classes statics were added to or removed from. Java files no longer
+ * generated are deleted.
+ *
+ * <p>Changes are detected by scanning the source paths again and comparing
+ * the length and last modified time of the files. Watch events only trigger
+ * the scan, so events for files that are excluded or lost due to an overflow
+ * don't matter.
+ */
+class Watcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Watcher.class);
+
+  static final long QUIET_PERIOD_MS = 100;
+
+  private final Controller controller;
+  private final FilePrinter printer;
+  private final Map<File, String> stamps = new HashMap<>();
+  private final Map<File, ParsedFile> models = new TreeMap<>();
+  private final Map<File, Set<String>> outputs = new HashMap<>();
+  private final Set<Path> watchedDirs = new HashSet<>();
+  private final Map<Path, Set<Path>> watchedFiles = new HashMap<>();
+
+  /**
+   * @param controller controller with the settings to generate with
+   * @param printer printer to print the Java files with
+   */
+  Watcher(final Controller controller, final FilePrinter printer) {
+    this.controller = controller;
+    this.printer = printer;
+    // Files are written again after each change, so only write real changes.
+    controller.setSkipUnchanged(true);
+  }
+
+  /**
+   * Generates all Java files and then keeps watching for changes until the
+   * thread is interrupted.
+   * @throws IOException
+   */
+  void watch() throws IOException {
+    try (final WatchService watchService =
+        FileSystems.getDefault().newWatchService()) {
+      for (final File srcPath : controller.getSrcPaths()) {
+        register(watchService, srcPath);
+      }
+      update();
+      LOG.info("Watching for changes, interrupt to stop.");
+      while (!Thread.currentThread().isInterrupted()) {
+        if (!processEvents(watchService, watchService.take())) {
+          continue;
+        }
+        WatchKey key;
+        while ((key = watchService.poll(QUIET_PERIOD_MS,
+            TimeUnit.MILLISECONDS)) != null) {
+          processEvents(watchService, key);
+        }
+        try {
+          update();
+        } catch (final RuntimeException e) {
+          LOG.error("Exception generating files, waiting for next change", e);
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Registers directories created since they were watched, so files in new
+   * directories are watched too.
+   * @return true if any of the events is for a watched file or directory
+   */
+  private boolean processEvents(final WatchService watchService,
+      final WatchKey key) throws IOException {
+    final Path dir = (Path) key.watchable();
+    boolean watched = false;
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        watched = true;
+        continue;
+      }
+      final Path name = (Path) event.context();
+      if (!isWatched(dir, name)) {
+        continue;
+      }
+      watched = true;
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+          && watchedDirs.contains(dir)) {
+        final Path child = dir.resolve(name);
+        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+          registerTree(watchService, child, findRoot(child));
+        }
+      }
+    }
+    key.reset();
+    return watched;
+  }
+
+  /**
+   * Returns true if changes of the given entry in the given directory must
+   * be processed. For a source path that is a single file only its parent
+   * directory is watched, and only events for that file are processed.
+   * @param dir watched directory
+   * @param name name of the entry in the directory
+   * @return true if the entry is watched
+   */
+  boolean isWatched(final Path dir, final Path name) {
+    final Set<Path> names = watchedFiles.get(dir);
+    return watchedDirs.contains(dir) || names != null && names.contains(name);
+  }
+
+  /**
+   * Watches a source path. A directory is watched with all its not excluded
+   * subdirectories, a file by watching only its parent directory.
+   * @param watchService watch service to register with
+   * @param srcPath source directory or file
+   * @throws IOException
+   */
+  void register(final WatchService watchService, final File srcPath)
+      throws IOException {
+    final Path root = srcPath.toPath().toAbsolutePath();
+    if (Files.isDirectory(root)) {
+      registerTree(watchService, root, root);
+    } else {
+      final Path dir = root.getParent();
+      Set<Path> names = watchedFiles.get(dir);
+      if (names == null) {
+        names = new HashSet<>();
+        watchedFiles.put(dir, names);
+        registerDirectory(watchService, dir);
+      }
+      names.add(root.getFileName());
+    }
+  }
+
+  private Path findRoot(final Path path) {
+    for (final File srcPath : controller.getSrcPaths()) {
+      final Path root = srcPath.toPath().toAbsolutePath();
+      if (path.startsWith(root)) {
+        return root;
+      }
+    }
+    return path;
+  }
+
+  private void registerTree(final WatchService watchService, final Path dir,
+      final Path root) throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path subDir,
+          final BasicFileAttributes attrs) throws IOException {
+        if (!subDir.equals(root) && controller.getScanner()
+            .isExcludedDirectory(root, subDir)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        registerDirectory(watchService, subDir);
+        watchedDirs.add(subDir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(final Path file,
+          final IOException e) {
+        LOG.warn("Could not watch {}: {}", file, e.toString());
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static void registerDirectory(final WatchService watchService,
+      final Path dir) throws IOException {
+    dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  /**
+   * Parses the JavaScript files changed since the previous update, and writes
+   * the Java files generated from them.
+   * @return number of JavaScript files changed or removed
+   */
+  int update() {
+    final long start = System.nanoTime();
+    final List<File> changed = new ArrayList<>();
+    final Set<File> removed = new HashSet<>(models.keySet());
+    for (final File file : controller.scanFiles()) {
+      removed.remove(file);
+      final String stamp = file.length() + " " + file.lastModified();
+      if (!stamp.equals(stamps.put(file, stamp))) {
+        changed.add(file);
+      }
+    }
+    if (changed.isEmpty() && removed.isEmpty()) {
+      return 0;
+    }
+    for (final File file : removed) {
+      models.remove(file);
+      stamps.remove(file);
+    }
+    final List<ParsedFile> parsedFiles = controller.parseFiles(changed);
+    for (int i = 0; i < changed.size(); i++) {
+      models.put(changed.get(i), parsedFiles.get(i));
+    }
+    final SymbolTable previous = controller.getSymbolTable();
+    controller.merge(models.values());
+    // Java files of unchanged JavaScript files are written too if statics
+    // from changed files were added to or removed from them.
+    final Set<JsFile> affected = Collections.newSetFromMap(
+        new IdentityHashMap<JsFile, Boolean>());
+    for (final ParsedFile parsedFile : parsedFiles) {
+      affected.addAll(parsedFile.getJsFiles());
+    }
+    affected.addAll(controller.getSymbolTable().getChangedFiles(previous));
+    controller.writeFiles(printer, affected, controller.getOutputPath());
+    deleteStale(changed, removed);
+    LOG.info("{} changed and {} removed JavaScript files processed in {} ms.",
+        changed.size(), removed.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return changed.size() + removed.size();
+  }
+
+  /**
+   * Deletes Java files that were generated from the changed or removed files,
+   * but aren't generated anymore.
+   */
+  private void deleteStale(final List<File> changed, final Set<File> removed) {
+    final Set<String> stale = new HashSet<>();
+    for (final File file : removed) {
+      final Set<String> oldOutputs = outputs.remove(file);
+      if (oldOutputs != null) {
+        stale.addAll(oldOutputs);
+      }
+    }
+    for (final File file : changed) {
+      final Set<String> newOutputs = new HashSet<>();
+      for (final JsFile jsFile : models.get(file).getJsFiles()) {
+        if (!printer.ignored(jsFile)) {
+          newOutputs.add(OutputWriter.getRelativePath(jsFile));
+        }
+      }
+      final Set<String> oldOutputs = outputs.put(file, newOutputs);
+      if (oldOutputs != null) {
+        stale.addAll(oldOutputs);
+      }
+    }
+    for (final Set<String> current : outputs.values()) {
+      stale.removeAll(current);
+    }
+    for (final String output : stale) {
+      final File file = new File(controller.getOutputPath(), output);
+      if (file.delete()) {
+        LOG.debug("Deleted stale file: {}", file);
+      }
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.cache;
+
+import static gruifo.cache.ModelWriter.FIRST_REF;
+import static gruifo.cache.ModelWriter.FLAG_ABSTRACT;
+import static gruifo.cache.ModelWriter.FLAG_CAN_NULL;
+import static gruifo.cache.ModelWriter.FLAG_CLASS_DESC;
+import static gruifo.cache.ModelWriter.FLAG_FUNCTION;
+import static gruifo.cache.ModelWriter.FLAG_INTERFACE;
+import static gruifo.cache.ModelWriter.FLAG_NOT_NULL;
+import static gruifo.cache.ModelWriter.FLAG_OPTIONAL;
+import static gruifo.cache.ModelWriter.FLAG_OVERRIDE;
+import static gruifo.cache.ModelWriter.FLAG_STATIC;
+import static gruifo.cache.ModelWriter.FLAG_VAR_ARGS;
+import static gruifo.cache.ModelWriter.NEW;
+import static gruifo.cache.ModelWriter.NULL;
+import gruifo.lang.AccessType;
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsElement.ElementType;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+import gruifo.lang.js.JsParam;
+import gruifo.lang.js.JsType;
+import gruifo.parser.ParsedFile;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a {@link ParsedFile} written by {@link ModelWriter}.
+ */
+class ModelReader {
+
+  private static final int MAX_VAR_INT_SHIFT = 28;
+
+  private final DataInput in;
+  private final List<Object> objects = new ArrayList<>();
+  private final List<String> strings = new ArrayList<>();
+
+  public ModelReader(final DataInput in) {
+    this.in = in;
+  }
+
+  public ParsedFile read() throws IOException {
+    final ParsedFile parsedFile = new ParsedFile();
+    for (int i = readVarInt(); i > 0; i--) {
+      parsedFile.getJsFiles().add(readFile());
+    }
+    for (int i = readVarInt(); i > 0; i--) {
+      parsedFile.getStaticMethods().add(readMethod());
+    }
+    for (int i = readVarInt(); i > 0; i--) {
+      parsedFile.getStaticConsts().put(readString(), readElement());
+    }
+    return parsedFile;
+  }
+
+  private JsFile readFile() throws IOException {
+    final int ref = readVarInt();
+    if (ref != NEW) {
+      return getRef(ref, JsFile.class);
+    }
+    final JsFile jsFile = new JsFile(readString(), readString(), readString(),
+        (readVarInt() & FLAG_INTERFACE) != 0);
+    objects.add(jsFile);
+    jsFile.setElement(readElement());
+    for (int i = readVarInt(); i > 0; i--) {
+      jsFile.addEnumValue(readString(), readString());
+    }
+    jsFile.getFields().addAll(readParams());
+    for (int i = readVarInt(); i > 0; i--) {
+      jsFile.addMethod(readMethod());
+    }
+    for (int i = readVarInt(); i > 0; i--) {
+      jsFile.addInnerJsFile(readFile());
+    }
+    return jsFile;
+  }
+
+  private JsMethod readMethod() throws IOException {
+    final int ref = readVarInt();
+    if (ref != NEW) {
+      return getRef(ref, JsMethod.class);
+    }
+    final JsMethod method = new JsMethod(readString(), readString());
+    objects.add(method);
+    final int flags = readVarInt();
+    method.setAbstract((flags & FLAG_ABSTRACT) != 0);
+    method.setStaticMethod((flags & FLAG_STATIC) != 0);
+    method.setElement(readElement());
+    return method;
+  }
+
+  private JsElement readElement() throws IOException {
+    final int ref = readVarInt();
+    if (ref != NEW) {
+      return getRef(ref, JsElement.class);
+    }
+    final JsElement element = new JsElement();
+    objects.add(element);
+    final AccessType accessType = readEnum(AccessType.values());
+    final ElementType elementType = readEnum(ElementType.values());
+    final int flags = readVarInt();
+    if ((flags & FLAG_CLASS_DESC) != 0) {
+      element.setClassDesc();
+    }
+    if ((flags & FLAG_OVERRIDE) != 0) {
+      element.setOverride();
+    }
+    element.setJsDoc(readString());
+    element.setGenericType(readString());
+    element.setExtends(readType());
+    for (int i = readVarInt(); i > 0; i--) {
+      element.addImplements(readType());
+    }
+    element.getParams().addAll(readParams());
+    if (readVarInt() != NULL) {
+      element.setTypeDef(readParams());
+    }
+    element.setType(readType());
+    element.setReturn(readType());
+    final JsType define = readType();
+    if (define != null) {
+      element.setDefine(define);
+    }
+    final JsType enumType = readType();
+    if (enumType != null) {
+      element.setEnum(enumType);
+    }
+    setAccessType(element, accessType);
+    setElementType(element, elementType);
+    return element;
+  }
+
+  private static void setAccessType(final JsElement element,
+      final AccessType accessType) throws IOException {
+    switch (accessType) {
+    case PRIVATE:
+      element.setPrivate();
+      break;
+    case PROTECTED:
+      element.setProtected();
+      break;
+    case PUBLIC:
+      break;
+    default:
+      throw new IOException("Unsupported access type: " + accessType);
+    }
+  }
+
+  /**
+   * Sets the element type after all other values are set, because setting
+   * a typedef, define or enum also sets the element type.
+   */
+  private static void setElementType(final JsElement element,
+      final ElementType elementType) throws IOException {
+    switch (elementType) {
+    case CONST:
+      element.setConst();
+      break;
+    case CONSTRUCTOR:
+      element.setConstructor();
+      break;
+    case DEFINE:
+      element.setDefine(element.getDefine());
+      break;
+    case ENUM:
+      element.setEnum(element.getEnumType());
+      break;
+    case INTERFACE:
+      element.setInterface();
+      break;
+    case METHOD:
+      element.setMethod();
+      break;
+    case TYPEDEF:
+      element.setTypeDef(element.getTypeDef());
+      break;
+    default:
+      throw new IOException("Unsupported element type: " + elementType);
+    }
+  }
+
+  private List<JsParam> readParams() throws IOException {
+    final int size = readVarInt();
+    final List<JsParam> params = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      params.add(readParam());
+    }
+    return params;
+  }
+
+  private JsParam readParam() throws IOException {
+    final int ref = readVarInt();
+    if (ref != NEW) {
+      return getRef(ref, JsParam.class);
+    }
+    final String name = readString();
+    final int index = objects.size();
+    objects.add(null);
+    final JsParam param = new JsParam(name, readElement());
+    objects.set(index, param);
+    param.setType(readType());
+    return param;
+  }
+
+  private JsType readType() throws IOException {
+    final int ref = readVarInt();
+    if (ref != NEW) {
+      return getRef(ref, JsType.class);
+    }
+    // Reserve the index, the type can only be created after its children.
+    final int index = objects.size();
+    objects.add(null);
+    final String name = readString();
+    final String rawType = readString();
+    final int flags = readVarInt();
+    final List<JsType> choices = new ArrayList<>();
+    for (int i = readVarInt(); i > 0; i--) {
+      choices.add(readType());
+    }
+    final List<JsType> typeList = new ArrayList<>();
+    for (int i = readVarInt(); i > 0; i--) {
+      typeList.add(readType());
+    }
+    final JsType type = new JsType(name, rawType,
+        (flags & FLAG_FUNCTION) != 0, (flags & FLAG_VAR_ARGS) != 0,
+        (flags & FLAG_NOT_NULL) != 0, (flags & FLAG_CAN_NULL) != 0,
+        (flags & FLAG_OPTIONAL) != 0, choices, typeList);
+    objects.set(index, type);
+    return type;
+  }
+
+  private <T> T getRef(final int ref, final Class<T> clazz)
+      throws IOException {
+    if (ref == NULL) {
+      return null;
+    }
+    final int index = ref - FIRST_REF;
+    if (index < 0 || index >= objects.size()
+        || !clazz.isInstance(objects.get(index))) {
+      throw new IOException("Invalid reference to " + clazz.getSimpleName()
+          + ": " + ref);
+    }
+    return clazz.cast(objects.get(index));
+  }
+
+  private <E extends Enum<E>> E readEnum(final E[] values) throws IOException {
+    final int ordinal = readVarInt();
+    if (ordinal >= values.length) {
+      throw new IOException("Invalid enum value: " + ordinal);
+    }
+    return values[ordinal];
+  }
+
+  private String readString() throws IOException {
+    final int ref = readVarInt();
+    if (ref == NULL) {
+      return null;
+    } else if (ref == NEW) {
+      final byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      final String string = new String(bytes, StandardCharsets.UTF_8);
+      strings.add(string);
+      return string;
+    }
+    final int index = ref - FIRST_REF;
+    if (index >= strings.size()) {
+      throw new IOException("Invalid reference to string: " + ref);
+    }
+    return strings.get(index);
+  }
+
+  private int readVarInt() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift <= MAX_VAR_INT_SHIFT; shift += 7) {
+      final int b = in.readByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          break;
+        }
+        return value;
+      }
+    }
+    throw new IOException("Invalid variable length integer");
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.cache;
+
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsEnum;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+import gruifo.lang.js.JsParam;
+import gruifo.lang.js.JsType;
+import gruifo.parser.ParsedFile;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes a {@link ParsedFile} in a compact binary format. Objects referenced
+ * more than once, and equal strings, are written once and referred to by index
+ * after that, so the object graph read back by {@link ModelReader} has the same
+ * shape. Numbers are written as variable length integers.
+ */
+class ModelWriter {
+
+  static final int NULL = 0;
+  static final int NEW = 1;
+  static final int FIRST_REF = 2;
+
+  static final int FLAG_FUNCTION = 1;
+  static final int FLAG_OPTIONAL = 1 << 1;
+  static final int FLAG_NOT_NULL = 1 << 2;
+  static final int FLAG_CAN_NULL = 1 << 3;
+  static final int FLAG_VAR_ARGS = 1 << 4;
+  static final int FLAG_CLASS_DESC = 1;
+  static final int FLAG_OVERRIDE = 1 << 1;
+  static final int FLAG_ABSTRACT = 1;
+  static final int FLAG_STATIC = 1 << 1;
+  static final int FLAG_INTERFACE = 1;
+
+  private final DataOutput out;
+  private final Map<Object, Integer> objects = new IdentityHashMap<>();
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  public ModelWriter(final DataOutput out) {
+    this.out = out;
+  }
+
+  public void write(final ParsedFile parsedFile) throws IOException {
+    writeVarInt(parsedFile.getJsFiles().size());
+    for (final JsFile jsFile : parsedFile.getJsFiles()) {
+      writeFile(jsFile);
+    }
+    writeVarInt(parsedFile.getStaticMethods().size());
+    for (final JsMethod method : parsedFile.getStaticMethods()) {
+      writeMethod(method);
+    }
+    writeVarInt(parsedFile.getStaticConsts().size());
+    for (final Entry<String, JsElement> entry
+        : parsedFile.getStaticConsts().entrySet()) {
+      writeString(entry.getKey());
+      writeElement(entry.getValue());
+    }
+  }
+
+  private void writeFile(final JsFile jsFile) throws IOException {
+    if (!writeRef(jsFile)) {
+      return;
+    }
+    writeString(jsFile.getOriginalFileName());
+    writeString(jsFile.getPackageName());
+    writeString(jsFile.getClassOrInterfaceName());
+    writeVarInt(jsFile.isInterface() ? FLAG_INTERFACE : 0);
+    writeElement(jsFile.getElement());
+    writeVarInt(jsFile.getEnumValues().size());
+    for (final JsEnum jsEnum : jsFile.getEnumValues()) {
+      writeString(jsEnum.getFieldName());
+      writeString(jsEnum.getJsDoc());
+    }
+    writeParams(jsFile.getFields());
+    writeVarInt(jsFile.getMethods().size());
+    for (final JsMethod method : jsFile.getMethods()) {
+      writeMethod(method);
+    }
+    writeVarInt(jsFile.getInnerJFiles().size());
+    for (final JsFile innerFile : jsFile.getInnerJFiles()) {
+      writeFile(innerFile);
+    }
+  }
+
+  private void writeMethod(final JsMethod method) throws IOException {
+    if (!writeRef(method)) {
+      return;
+    }
+    writeString(method.getPackageName());
+    writeString(method.getMethodName());
+    writeVarInt((method.isAbstractMethod() ? FLAG_ABSTRACT : 0)
+        | (method.isStaticMethod() ? FLAG_STATIC : 0));
+    writeElement(method.getElement());
+  }
+
+  private void writeElement(final JsElement element) throws IOException {
+    if (!writeRef(element)) {
+      return;
+    }
+    writeVarInt(element.getAccessType().ordinal());
+    writeVarInt(element.getElementType().ordinal());
+    writeVarInt((element.isClassDescription() ? FLAG_CLASS_DESC : 0)
+        | (element.isOverride() ? FLAG_OVERRIDE : 0));
+    writeString(element.getJsDoc());
+    writeString(element.getGenericType());
+    writeType(element.getExtends());
+    writeTypes(element.getImplements());
+    writeParams(element.getParams());
+    if (element.getTypeDef() == null) {
+      writeVarInt(NULL);
+    } else {
+      writeVarInt(NEW);
+      writeParams(element.getTypeDef());
+    }
+    writeType(element.getType());
+    writeType(element.getReturn());
+    writeType(element.getDefine());
+    writeType(element.getEnumType());
+  }
+
+  private void writeParams(final List<JsParam> params) throws IOException {
+    writeVarInt(params.size());
+    for (final JsParam param : params) {
+      writeParam(param);
+    }
+  }
+
+  private void writeParam(final JsParam param) throws IOException {
+    if (!writeRef(param)) {
+      return;
+    }
+    writeString(param.getName());
+    writeElement(param.getElement());
+    // With an element the type is taken from the element.
+    writeType(param.getElement() == null ? param.getType() : null);
+  }
+
+  private void writeTypes(final List<JsType> types) throws IOException {
+    writeVarInt(types.size());
+    for (final JsType type : types) {
+      writeType(type);
+    }
+  }
+
+  private void writeType(final JsType type) throws IOException {
+    if (!writeRef(type)) {
+      return;
+    }
+    writeString(type.getName());
+    writeString(type.getRawType());
+    writeVarInt((type.isFunction() ? FLAG_FUNCTION : 0)
+        | (type.isOptional() ? FLAG_OPTIONAL : 0)
+        | (type.isNotNull() ? FLAG_NOT_NULL : 0)
+        | (type.isCanNull() ? FLAG_CAN_NULL : 0)
+        | (type.isVarArgs() ? FLAG_VAR_ARGS : 0));
+    writeTypes(type.getChoices());
+    writeTypes(type.getTypeList());
+  }
+
+  /**
+   * Writes the reference to the object. Returns true if the object is written
+   * for the first time and thus its content must be written.
+   */
+  private boolean writeRef(final Object object) throws IOException {
+    if (object == null) {
+      writeVarInt(NULL);
+      return false;
+    }
+    final Integer index = objects.get(object);
+    if (index == null) {
+      objects.put(object, objects.size());
+      writeVarInt(NEW);
+      return true;
+    }
+    writeVarInt(FIRST_REF + index);
+    return false;
+  }
+
+  private void writeString(final String string) throws IOException {
+    if (string == null) {
+      writeVarInt(NULL);
+      return;
+    }
+    final Integer index = strings.get(string);
+    if (index == null) {
+      strings.put(string, strings.size());
+      writeVarInt(NEW);
+      final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      out.write(bytes);
+    } else {
+      writeVarInt(FIRST_REF + index);
+    }
+  }
+
+  private void writeVarInt(final int value) throws IOException {
+    int v = value;
+    while ((v & ~0x7f) != 0) {
+      out.writeByte((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out.writeByte(v);
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.cache;
+
+import gruifo.Version;
+import gruifo.incremental.ContentHash;
+import gruifo.parser.ParsedFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On disk cache of parsed JavaScript files. Entries are keyed by the hash of
+ * the file content, the file path, the charset and the gruifo version, so a
+ * cached entry is only used for exactly the same input. When the total size
+ * of the cache exceeds the maximum size, the least recently used entries are
+ * removed. Recently used is tracked by the last modified time of the entries,
+ * which is updated on each cache hit.
+ *
+ * <p>The cache can be used from multiple threads concurrently.
+ */
+public class ParseCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParseCache.class);
+
+  private static final String EXT = ".bin";
+  private static final int MAGIC = 0x67727566; // "gruf"
+  private static final int FORMAT_VERSION = 2;
+  private static final int EVICT_PERCENTAGE = 75;
+  private static final FileFilter ENTRY_FILTER = new FileFilter() {
+    @Override
+    public boolean accept(final File file) {
+      return file.isFile() && file.getName().endsWith(EXT);
+    }
+  };
+
+  private final File cacheDir;
+  private final long maxSize;
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param cacheDir directory to store the cache entries in
+   * @param maxSize maximum size of the cache in bytes
+   */
+  public ParseCache(final File cacheDir, final long maxSize) {
+    this.cacheDir = cacheDir;
+    this.maxSize = maxSize;
+    cacheDir.mkdirs();
+    final File[] entries = cacheDir.listFiles(ENTRY_FILTER);
+    if (entries != null) {
+      for (final File entry : entries) {
+        size.addAndGet(entry.length());
+      }
+    }
+  }
+
+  /**
+   * Returns the cache key for the given JavaScript file, read with the given
+   * charset.
+   * @param file JavaScript file
+   * @param charset charset the file is read with
+   * @return cache key
+   * @throws IOException
+   */
+  public static String getKey(final File file, final Charset charset)
+      throws IOException {
+    return ContentHash.of(Version.get() + '\n' + FORMAT_VERSION + '\n'
+        + charset.name() + '\n' + file.getAbsolutePath() + '\n'
+        + ContentHash.of(file));
+  }
+
+  /**
+   * Returns the cached parse result, or null if not in the cache.
+   * @param key cache key
+   * @return parse result or null
+   */
+  public ParsedFile get(final String key) {
+    final File file = getFile(key);
+    if (file.isFile()) {
+      try {
+        final ParsedFile parsedFile = read(Files.readAllBytes(file.toPath()));
+        if (parsedFile != null) {
+          file.setLastModified(System.currentTimeMillis());
+          hits.incrementAndGet();
+          return parsedFile;
+        }
+      } catch (final IOException | RuntimeException e) {
+        LOG.debug("Cache entry {} could not be read.", file, e);
+      }
+      delete(file);
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Stores the parse result in the cache.
+   * @param key cache key
+   * @param parsedFile parse result
+   */
+  public void put(final String key, final ParsedFile parsedFile) {
+    final Path file = getFile(key).toPath();
+    try {
+      final byte[] bytes = write(parsedFile);
+      final Path tmp = Files.createTempFile(cacheDir.toPath(), key, ".tmp");
+      try {
+        Files.write(tmp, bytes);
+        try {
+          Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+          Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+      if (size.addAndGet(bytes.length) > maxSize) {
+        evict();
+      }
+    } catch (final IOException e) {
+      LOG.warn("Could not write cache entry {}.", file, e);
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the total size of all entries in the cache.
+   * @return size in bytes
+   */
+  public long getSize() {
+    return size.get();
+  }
+
+  /**
+   * Removes the least recently used entries until the cache is reduced to
+   * {@value #EVICT_PERCENTAGE}% of the maximum size, so eviction doesn't
+   * happen on every put.
+   */
+  private synchronized void evict() {
+    if (size.get() <= maxSize) {
+      return;
+    }
+    final File[] entries = cacheDir.listFiles(ENTRY_FILTER);
+    if (entries == null) {
+      return;
+    }
+    long total = 0;
+    for (int i = 0; i < entries.length; i++) {
+      total += entries[i].length();
+    }
+    final File[] sorted = sortByLastModified(entries);
+    final long target = (long) (maxSize * (EVICT_PERCENTAGE / 100.0));
+    for (int i = 0; i < sorted.length && total > target; i++) {
+      final long length = sorted[i].length();
+      if (sorted[i].delete()) {
+        total -= length;
+      }
+    }
+    size.set(total);
+  }
+
+  private static File[] sortByLastModified(final File[] entries) {
+    final long[] lastModified = new long[entries.length];
+    final Integer[] order = new Integer[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      // read once, entries can be touched while sorting.
+      lastModified[i] = entries[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer o1, final Integer o2) {
+        return Long.compare(lastModified[o1], lastModified[o2]);
+      }
+    });
+    final File[] sorted = new File[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      sorted[i] = entries[order[i]];
+    }
+    return sorted;
+  }
+
+  private void delete(final File file) {
+    final long length = file.length();
+    if (file.delete()) {
+      size.addAndGet(-length);
+    }
+  }
+
+  private File getFile(final String key) {
+    return new File(cacheDir, key + EXT);
+  }
+
+  static byte[] write(final ParsedFile parsedFile) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      new ModelWriter(out).write(parsedFile);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Reads the parse result, returns null if the data was written in a
+   * different format.
+   */
+  static ParsedFile read(final byte[] bytes) throws IOException {
+    try (final DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      return new ModelReader(in).read();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.incremental;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stamp of a previous generation run, to skip a run completely when nothing
+ * changed. The stamp is a hash of the settings fingerprint and the path,
+ * length and last modified time of all source files. It's stored in the
+ * output directory, together with the length and last modified time of each
+ * generated file, so a missing or modified generated file makes the run
+ * stale. Unlike {@link IncrementalBuild} no file content is read, so checking
+ * the stamp is cheap.
+ */
+public class BuildStamp {
+
+  /**
+   * File name of the stamp in the output directory.
+   */
+  public static final String STAMP_FILE = ".gruifo-stamp";
+
+  private static final Logger LOG = LoggerFactory.getLogger(BuildStamp.class);
+
+  private final File outputPath;
+  private final File stampFile;
+  private final String stamp;
+
+  /**
+   * @param outputPath output directory to store the stamp in
+   * @param settings fingerprint of the settings of this run
+   * @param sources all source files
+   */
+  public BuildStamp(final File outputPath, final String settings,
+      final List<File> sources) {
+    this.outputPath = outputPath;
+    stampFile = new File(outputPath, STAMP_FILE);
+    final StringBuilder content = new StringBuilder(settings);
+    for (final File source : sources) {
+      content.append('\n').append(source.getAbsolutePath())
+      .append(' ').append(source.length())
+      .append(' ').append(source.lastModified());
+    }
+    stamp = ContentHash.of(content.toString());
+  }
+
+  /**
+   * Returns true if the stamp of the previous run is the same as this stamp
+   * and all files generated by the previous run are unchanged.
+   * @return true if nothing changed since the previous run
+   */
+  public boolean isUpToDate() {
+    if (!stampFile.isFile()) {
+      return false;
+    }
+    try {
+      final List<String> lines =
+          Files.readAllLines(stampFile.toPath(), StandardCharsets.UTF_8);
+      if (lines.isEmpty() || !stamp.equals(lines.get(0))) {
+        return false;
+      }
+      for (int i = 1; i < lines.size(); i++) {
+        if (!isUnchanged(lines.get(i))) {
+          LOG.info("Generated file changed or missing: {}", lines.get(i));
+          return false;
+        }
+      }
+      return true;
+    } catch (final IOException | RuntimeException e) {
+      LOG.warn("Stamp {} could not be read, all files will be generated.",
+          stampFile, e);
+      return false;
+    }
+  }
+
+  /**
+   * Returns true if the generated file of the stamp line still has the
+   * recorded length and last modified time.
+   */
+  private boolean isUnchanged(final String line) {
+    final String[] parts = line.split(" ", 3);
+    final File output = new File(outputPath, parts[2]);
+    return output.isFile() && output.length() == Long.parseLong(parts[0])
+        && output.lastModified() == Long.parseLong(parts[1]);
+  }
+
+  /**
+   * Removes the stamp of the previous run, so an interrupted run is never
+   * seen as up to date.
+   */
+  public void invalidate() {
+    if (stampFile.exists() && !stampFile.delete()) {
+      LOG.warn("Stamp {} could not be deleted.", stampFile);
+    }
+  }
+
+  /**
+   * Writes the stamp and the state of the generated files to the output
+   * directory.
+   * @param outputs paths of all generated files, relative to the output
+   *          directory
+   * @throws IOException
+   */
+  public void save(final Collection<String> outputs) throws IOException {
+    final StringBuilder content = new StringBuilder(stamp);
+    for (final String output : outputs) {
+      final File file = new File(outputPath, output);
+      content.append('\n').append(file.length())
+      .append(' ').append(file.lastModified())
+      .append(' ').append(output);
+    }
+    stampFile.getParentFile().mkdirs();
+    Files.write(stampFile.toPath(),
+        content.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
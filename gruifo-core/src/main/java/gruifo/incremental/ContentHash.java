@@ -0,0 +1,83 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.incremental;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Util class to calculate content hashes of files and strings.
+ */
+public final class ContentHash {
+
+  private static final String ALGORITHM = "SHA-1";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int BUFFER_SIZE = 8192;
+
+  private ContentHash() {
+    // util
+  }
+
+  /**
+   * Returns the hash of the content of the given file as hexadecimal string.
+   * @param file file to hash
+   * @return hash of the file content
+   * @throws IOException
+   */
+  public static String of(final File file) throws IOException {
+    final MessageDigest digest = newDigest();
+    try (final InputStream is = new FileInputStream(file)) {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Returns the hash of the given string as hexadecimal string.
+   * @param content string to hash
+   * @return hash of the string
+   */
+  public static String of(final String content) {
+    return toHex(newDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-1.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static String toHex(final byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+}
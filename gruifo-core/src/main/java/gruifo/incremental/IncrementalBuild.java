@@ -0,0 +1,311 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.incremental;
+
+import gruifo.incremental.Manifest.Entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Determines which JavaScript files need to be generated again, based on the
+ * manifest of the previous run in the output directory. A source file needs to
+ * be generated if it's new, its content changed, or one of the Java files
+ * generated from it is missing. If the settings changed all files are
+ * generated. Java files generated from sources that are removed, or that are
+ * no longer generated, are deleted when the build is finished.
+ *
+ * <p>Static methods and constants can belong to a class defined in another
+ * source file. Therefore per source the classes defined and the classes it has
+ * statics for are recorded, and unchanged sources linked to the sources
+ * generated via these classes are generated too, see
+ * {@link #filterDependent()}.
+ */
+public class IncrementalBuild {
+
+  /**
+   * File name of the manifest in the output directory.
+   */
+  public static final String MANIFEST_FILE = ".gruifo-manifest";
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(IncrementalBuild.class);
+
+  private final File outputPath;
+  private final Manifest previous;
+  private final Manifest current = new Manifest();
+  private final Set<String> changed = new HashSet<>();
+  private final Map<String, File> unchanged = new HashMap<>();
+  private final List<String> changedDefines = new ArrayList<>();
+  private final List<String> changedUses = new ArrayList<>();
+  private Map<String, List<String>> definedBy;
+  private Map<String, List<String>> usedBy;
+
+  /**
+   * @param outputPath output directory containing the manifest
+   * @param settings fingerprint of the settings of this run
+   */
+  public IncrementalBuild(final File outputPath, final String settings) {
+    this.outputPath = outputPath;
+    final Manifest manifest = Manifest.load(getManifestFile());
+    if (settings.equals(manifest.getSettings())) {
+      previous = manifest;
+    } else {
+      if (!manifest.getEntries().isEmpty()) {
+        LOG.info("Settings changed, all files will be generated.");
+      }
+      previous = new Manifest();
+      // Keep outputs of the previous run, so they are removed if not generated.
+      for (final Entry entry : manifest.getEntries()) {
+        previous.put(new Entry(entry.getSource(), -1, -1, ""));
+        previous.get(entry.getSource()).getOutputs().addAll(entry.getOutputs());
+      }
+    }
+    current.setSettings(settings);
+  }
+
+  /**
+   * Returns the files that need to be generated. All other files are
+   * unchanged since the previous run.
+   * @param sources all source files
+   * @return source files to generate
+   * @throws IOException
+   */
+  public List<File> filterChanged(final List<File> sources) throws IOException {
+    final List<File> toGenerate = new ArrayList<>();
+    for (final File source : sources) {
+      final String path = getSourceKey(source);
+      final Entry entry = previous.get(path);
+      final long length = source.length();
+      final long lastModified = source.lastModified();
+      if (entry != null && entry.getLength() == length
+          && entry.getLastModified() == lastModified && outputsExist(entry)) {
+        current.put(entry);
+        unchanged.put(path, source);
+        continue;
+      }
+      final String hash = ContentHash.of(source);
+      final Entry newEntry = new Entry(path, length, lastModified, hash);
+      if (entry != null && hash.equals(entry.getHash())
+          && outputsExist(entry)) {
+        newEntry.getOutputs().addAll(entry.getOutputs());
+        newEntry.getDefines().addAll(entry.getDefines());
+        newEntry.getUses().addAll(entry.getUses());
+        unchanged.put(path, source);
+      } else {
+        toGenerate.add(source);
+        setChanged(path);
+      }
+      current.put(newEntry);
+    }
+    return toGenerate;
+  }
+
+  /**
+   * Records the classes defined in a generated JavaScript file and the classes
+   * it has statics for that are not defined in the file itself.
+   * @param source JavaScript source file
+   * @param defines fully qualified names of the classes defined
+   * @param uses fully qualified names of the classes statics are for
+   */
+  public void setSymbols(final File source, final Collection<String> defines,
+      final Collection<String> uses) {
+    final Entry entry = current.get(getSourceKey(source));
+    if (entry != null) {
+      entry.getDefines().clear();
+      entry.getDefines().addAll(defines);
+      entry.getUses().clear();
+      entry.getUses().addAll(uses);
+      changedDefines.addAll(defines);
+      changedUses.addAll(uses);
+    }
+  }
+
+  /**
+   * Returns the unchanged source files that must be generated, because they
+   * have statics for classes defined in the sources generated, or because
+   * the sources generated have statics for classes defined in them. The
+   * classes of the previous run, of removed sources and the classes recorded
+   * with {@link #setSymbols(File, Collection, Collection)} are used. The
+   * returned files are from then on handled as changed files, so this should
+   * be called until no more files are returned.
+   * @return unchanged source files to generate
+   */
+  public List<File> filterDependent() {
+    if (definedBy == null) {
+      definedBy = new HashMap<>();
+      usedBy = new HashMap<>();
+      for (final String path : unchanged.keySet()) {
+        final Entry entry = current.get(path);
+        index(definedBy, entry.getDefines(), path);
+        index(usedBy, entry.getUses(), path);
+      }
+      for (final Entry entry : previous.getEntries()) {
+        if (current.get(entry.getSource()) == null) {
+          changedDefines.addAll(entry.getDefines());
+          changedUses.addAll(entry.getUses());
+        }
+      }
+    }
+    final Set<String> dependent = new LinkedHashSet<>();
+    for (final String define : changedDefines) {
+      addUnchanged(dependent, usedBy.get(define));
+    }
+    for (final String use : changedUses) {
+      addUnchanged(dependent, definedBy.get(use));
+    }
+    changedDefines.clear();
+    changedUses.clear();
+    final List<File> toGenerate = new ArrayList<>(dependent.size());
+    for (final String path : dependent) {
+      final Entry entry = current.get(path);
+      current.put(new Entry(path, entry.getLength(), entry.getLastModified(),
+          entry.getHash()));
+      toGenerate.add(unchanged.remove(path));
+      setChanged(path);
+    }
+    return toGenerate;
+  }
+
+  private void addUnchanged(final Set<String> dependent,
+      final List<String> paths) {
+    if (paths != null) {
+      for (final String path : paths) {
+        if (unchanged.containsKey(path)) {
+          dependent.add(path);
+        }
+      }
+    }
+  }
+
+  private static void index(final Map<String, List<String>> index,
+      final List<String> names, final String path) {
+    for (final String name : names) {
+      List<String> paths = index.get(name);
+      if (paths == null) {
+        paths = new ArrayList<>(1);
+        index.put(name, paths);
+      }
+      paths.add(path);
+    }
+  }
+
+  /**
+   * Marks a source as changed. Classes of the previous run of the source are
+   * linked to other sources, as these might need to change too.
+   */
+  private void setChanged(final String path) {
+    changed.add(path);
+    final Entry entry = previous.get(path);
+    if (entry != null) {
+      changedDefines.addAll(entry.getDefines());
+      changedUses.addAll(entry.getUses());
+    }
+  }
+
+  /**
+   * Records the Java file generated from the given JavaScript file.
+   * @param source JavaScript source file name
+   * @param output path of the generated Java file relative to the output
+   *          directory
+   */
+  public void addOutput(final String source, final String output) {
+    final Entry entry = current.get(getSourceKey(new File(source)));
+    if (entry != null) {
+      entry.addOutput(output);
+    }
+  }
+
+  /**
+   * Deletes Java files that are no longer generated and saves the manifest.
+   * @throws IOException
+   */
+  public void finish() throws IOException {
+    final Set<String> outputs = new HashSet<>();
+    for (final Entry entry : current.getEntries()) {
+      outputs.addAll(entry.getOutputs());
+    }
+    for (final Entry entry : previous.getEntries()) {
+      if (changed.contains(entry.getSource())
+          || current.get(entry.getSource()) == null) {
+        deleteStale(entry.getOutputs(), outputs);
+      }
+    }
+    current.save(getManifestFile());
+  }
+
+  /**
+   * Returns the Java files generated from all source files, including the
+   * files generated by previous runs from unchanged sources.
+   * @return paths relative to the output directory
+   */
+  public Set<String> getOutputs() {
+    final Set<String> outputs = new TreeSet<>();
+    for (final Entry entry : current.getEntries()) {
+      outputs.addAll(entry.getOutputs());
+    }
+    return outputs;
+  }
+
+  /**
+   * Returns the number of source files that are generated in this run.
+   * @return number of changed files
+   */
+  public int getChangedCount() {
+    return changed.size();
+  }
+
+  private void deleteStale(final Collection<String> oldOutputs,
+      final Set<String> outputs) {
+    for (final String output : oldOutputs) {
+      if (!outputs.contains(output)) {
+        final File file = new File(outputPath, output);
+        if (file.delete()) {
+          LOG.debug("Deleted stale file: {}", file);
+        }
+      }
+    }
+  }
+
+  private boolean outputsExist(final Entry entry) {
+    for (final String output : entry.getOutputs()) {
+      if (!new File(outputPath, output).isFile()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private File getManifestFile() {
+    return new File(outputPath, MANIFEST_FILE);
+  }
+
+  private static String getSourceKey(final File source) {
+    return source.getAbsolutePath();
+  }
+}
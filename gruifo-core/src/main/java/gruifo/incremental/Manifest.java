@@ -0,0 +1,219 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.incremental;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record of a previous generation run: the settings fingerprint and, per
+ * JavaScript source file, its content hash and the Java files generated from
+ * it. The manifest is stored as a text file:
+ * <pre>
+ * settings [hash]
+ * source [length] [last modified] [hash] [source path]
+ * output [generated file path, relative to the output directory]
+ * defines [fully qualified name of a class defined in the source]
+ * uses [fully qualified name of a class the source has statics for]
+ * </pre>
+ * Output, defines and uses lines belong to the source line preceding it.
+ */
+public class Manifest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Manifest.class);
+
+  private static final String SETTINGS = "settings";
+  private static final String SOURCE = "source";
+  private static final String OUTPUT = "output";
+  private static final String DEFINES = "defines";
+  private static final String USES = "uses";
+  private static final String SEPARATOR = " ";
+
+  /**
+   * Manifest data of a single JavaScript source file.
+   */
+  public static class Entry {
+    private final String source;
+    private final long length;
+    private final long lastModified;
+    private final String hash;
+    private final List<String> outputs = new ArrayList<>();
+    private final List<String> defines = new ArrayList<>();
+    private final List<String> uses = new ArrayList<>();
+
+    public Entry(final String source, final long length,
+        final long lastModified, final String hash) {
+      this.source = source;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    public void addOutput(final String output) {
+      outputs.add(output);
+    }
+
+    public List<String> getDefines() {
+      return defines;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public List<String> getOutputs() {
+      return outputs;
+    }
+
+    public String getSource() {
+      return source;
+    }
+
+    public List<String> getUses() {
+      return uses;
+    }
+  }
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private String settings = "";
+
+  /**
+   * Reads the manifest from file. If the file doesn't exist or can't be read
+   * an empty manifest is returned.
+   * @param file manifest file
+   * @return manifest read
+   */
+  public static Manifest load(final File file) {
+    final Manifest manifest = new Manifest();
+    if (file.isFile()) {
+      try (final BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(file),
+              StandardCharsets.UTF_8))) {
+        manifest.read(reader);
+      } catch (final IOException | RuntimeException e) {
+        LOG.warn("Manifest {} could not be read, all files will be generated.",
+            file, e);
+        return new Manifest();
+      }
+    }
+    return manifest;
+  }
+
+  private void read(final BufferedReader reader) throws IOException {
+    Entry entry = null;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      final int sep = line.indexOf(SEPARATOR);
+      final String key = sep < 0 ? line : line.substring(0, sep);
+      final String value = line.substring(sep + 1);
+      switch (key) {
+      case SETTINGS:
+        settings = value;
+        break;
+      case SOURCE:
+        final String[] split = value.split(SEPARATOR, 4);
+        entry = new Entry(split[3], Long.parseLong(split[0]),
+            Long.parseLong(split[1]), split[2]);
+        put(entry);
+        break;
+      case OUTPUT:
+        entry.addOutput(value);
+        break;
+      case DEFINES:
+        entry.getDefines().add(value);
+        break;
+      case USES:
+        entry.getUses().add(value);
+        break;
+      default:
+        throw new IOException("Unknown line in manifest: " + line);
+      }
+    }
+  }
+
+  /**
+   * Writes the manifest to file.
+   * @param file manifest file
+   * @throws IOException
+   */
+  public void save(final File file) throws IOException {
+    file.getParentFile().mkdirs();
+    try (final Writer writer = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      writer.append(SETTINGS).append(SEPARATOR).append(settings).append('\n');
+      for (final Entry entry : entries.values()) {
+        writer.append(SOURCE).append(SEPARATOR)
+        .append(String.valueOf(entry.getLength())).append(SEPARATOR)
+        .append(String.valueOf(entry.getLastModified())).append(SEPARATOR)
+        .append(entry.getHash()).append(SEPARATOR)
+        .append(entry.getSource()).append('\n');
+        for (final String output : entry.getOutputs()) {
+          writer.append(OUTPUT).append(SEPARATOR).append(output).append('\n');
+        }
+        for (final String define : entry.getDefines()) {
+          writer.append(DEFINES).append(SEPARATOR).append(define).append('\n');
+        }
+        for (final String use : entry.getUses()) {
+          writer.append(USES).append(SEPARATOR).append(use).append('\n');
+        }
+      }
+    }
+  }
+
+  public Entry get(final String source) {
+    return entries.get(source);
+  }
+
+  public Collection<Entry> getEntries() {
+    return entries.values();
+  }
+
+  public String getSettings() {
+    return settings;
+  }
+
+  public void put(final Entry entry) {
+    entries.put(entry.getSource(), entry);
+  }
+
+  public void setSettings(final String settings) {
+    this.settings = settings;
+  }
+}
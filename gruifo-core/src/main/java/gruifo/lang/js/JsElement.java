@@ -68,6 +68,10 @@ public class JsElement {
     return enumType;
   }
 
+  public ElementType getElementType() {
+    return elementType;
+  }
+
   public JsType getExtends() {
     return extendsType;
   }
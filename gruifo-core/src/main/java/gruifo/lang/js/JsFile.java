@@ -62,6 +62,10 @@ public class JsFile {
     return classOrInteraceName;
   }
 
+  public String getFullClassName() {
+    return packageName + "." + classOrInteraceName;
+  }
+
   public JsElement getElement() {
     return element;
   }
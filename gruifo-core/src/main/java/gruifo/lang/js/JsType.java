@@ -16,55 +16,83 @@
 package gruifo.lang.js;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-public class JsType {
-
-  private boolean _function;
-  private String name;
-  private final List<JsType> choices = new ArrayList<>();
-  private final List<JsType> typeList = new ArrayList<>();
-  private boolean optional;
-  private boolean notNull;
-  private boolean canNull;
-  private boolean varArgs;
+/**
+ * Type of a JavaScript parameter, field or return value. A type is an
+ * immutable value, so instances can be shared between elements and files.
+ */
+public final class JsType {
+
+  private final boolean _function;
+  private final String name;
+  private final List<JsType> choices;
+  private final List<JsType> typeList;
+  private final boolean optional;
+  private final boolean notNull;
+  private final boolean canNull;
+  private final boolean varArgs;
   private final String rawType;
 
   public JsType(final String name, final String rawType) {
-    this(rawType);
-    this.name = name;
+    this(name, rawType, false, false, false, false, false, null, null);
   }
 
   public JsType(final String rawType) {
+    this(null, rawType);
+  }
+
+  /**
+   * @param name name of the type, without generic types
+   * @param rawType type as in the JavaScript documentation
+   * @param _function true if function type
+   * @param varArgs true if variable arguments
+   * @param notNull true if type can't be null
+   * @param canNull true if type can be null
+   * @param optional true if optional parameter
+   * @param choices the types this type can be, or null if none
+   * @param typeList the generic types, or null if none
+   */
+  public JsType(final String name, final String rawType,
+      final boolean _function, final boolean varArgs, final boolean notNull,
+      final boolean canNull, final boolean optional, final List<JsType> choices,
+      final List<JsType> typeList) {
+    this.name = name;
     this.rawType = rawType;
+    this._function = _function;
+    this.varArgs = varArgs;
+    this.notNull = notNull;
+    this.canNull = canNull;
+    this.optional = optional;
+    this.choices = copy(choices);
+    this.typeList = copy(typeList);
   }
 
-  public String getName() {
-    return name;
+  private static List<JsType> copy(final List<JsType> types) {
+    return types == null || types.isEmpty()
+        ? Collections.<JsType>emptyList()
+        : Collections.unmodifiableList(new ArrayList<>(types));
   }
 
-  public void addChoice(final JsType type) {
-    choices.add(type);
+  /**
+   * Returns a copy of this type with the given can null value.
+   * @param canNull true if type can be null
+   * @return this type if unchanged or else a copy of this type
+   */
+  public JsType withNull(final boolean canNull) {
+    return this.canNull == canNull ? this : new JsType(name, rawType,
+        _function, varArgs, notNull, canNull, optional, choices, typeList);
   }
 
-  public void addChoices(final List<JsType> choices) {
-    this.choices.addAll(choices);
+  public String getName() {
+    return name;
   }
 
   public List<JsType> getChoices() {
     return choices;
   }
 
-  public void addSubType(final JsType type) {
-    typeList.add(type);
-  }
-
-  public void addSubTypes(final List<JsType> types) {
-    if (types != null) {
-      typeList.addAll(types);
-    }
-  }
-
   public boolean isGeneric() {
     return !typeList.isEmpty();
   }
@@ -97,44 +125,42 @@ public class JsType {
     return varArgs;
   }
 
-  public void setFunction(final boolean _function) {
-    this._function = _function;
-  }
-
-  /**
-   * Type is optional.
-   * @param optional
-   */
-  public void setOptional(final boolean optional) {
-    this.optional = optional;
-  }
-
-  /**
-   * Value may not be null.
-   * @param notNull
-   */
-  public void setNotNull(final boolean notNull) {
-    this.notNull = notNull;
-  }
-
-  /**
-   * Value may be null.
-   * @param canNull
-   */
-  public void setNull(final boolean canNull) {
-    this.canNull = canNull;
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + (rawType == null ? 0 : rawType.hashCode());
+    result = prime * result + (name == null ? 0 : name.hashCode());
+    result = prime * result + choices.hashCode();
+    result = prime * result + typeList.hashCode();
+    result = prime * result + (_function ? 1 : 0);
+    result = prime * result + (varArgs ? 1 : 0);
+    result = prime * result + (notNull ? 1 : 0);
+    result = prime * result + (canNull ? 1 : 0);
+    result = prime * result + (optional ? 1 : 0);
+    return result;
   }
 
-  /**
-   * Type is a var args type.
-   * @param varArgs
-   */
-  public void setVarArgs(final boolean varArgs) {
-    this.varArgs = varArgs;
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof JsType)) {
+      return false;
+    }
+    final JsType other = (JsType) obj;
+    return _function == other._function && varArgs == other.varArgs
+        && notNull == other.notNull && canNull == other.canNull
+        && optional == other.optional
+        && (rawType == null ? other.rawType == null
+            : rawType.equals(other.rawType))
+        && (name == null ? other.name == null : name.equals(other.name))
+        && choices.equals(other.choices) && typeList.equals(other.typeList);
   }
 
   @Override
   public String toString() {
     return getRawType();
   }
-}
\ No newline at end of file
+}
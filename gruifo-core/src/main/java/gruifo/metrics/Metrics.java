@@ -0,0 +1,288 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records time spent per phase and counters of a generation run, in total and
+ * per JavaScript source file. Times of a phase are summed over all files, so
+ * with more than 1 thread the total of a phase can be larger than the wall
+ * time of the run. This class is thread-safe.
+ */
+public class Metrics {
+
+  /**
+   * Phases of a generation run.
+   */
+  public enum Phase {
+    /** Scanning the source directories for JavaScript files. */
+    SCAN,
+    /** Parsing the JavaScript files with Rhino. */
+    PARSE,
+    /** Walking the syntax tree and parsing the JSDoc comments. */
+    JSDOC,
+    /** Transforming JavaScript files to Java classes. */
+    TRANSFORM,
+    /** Printing the Java files, including the transform. */
+    PRINT,
+    /** Moving printed files in place, or comparing them with the old ones. */
+    WRITE;
+  }
+
+  /**
+   * Counters of a generation run.
+   */
+  public enum Counter {
+    /** JavaScript files found. */
+    FILES_SCANNED,
+    /** JavaScript files parsed, not found in the parse cache. */
+    FILES_PARSED,
+    /** Syntax tree nodes visited. */
+    AST_NODES,
+    /** Classes and interfaces found in the JavaScript files. */
+    CLASSES,
+    /** Methods and constructors generated, including all overloads. */
+    OVERLOADS,
+    /** Java files written. */
+    FILES_WRITTEN,
+    /** Java files not written, because their content didn't change. */
+    FILES_UNCHANGED,
+    /** Bytes of the printed Java files. */
+    BYTES_WRITTEN;
+  }
+
+  /**
+   * Times and counters of a single JavaScript source file.
+   */
+  public static class FileMetrics {
+    private final AtomicLongArray times =
+        new AtomicLongArray(Phase.values().length);
+    private final AtomicLongArray counts =
+        new AtomicLongArray(Counter.values().length);
+
+    public long getCount(final Counter counter) {
+      return counts.get(counter.ordinal());
+    }
+
+    public long getTime(final Phase phase) {
+      return times.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the total time spent on this file, excluding the transform
+     * which is already part of printing.
+     * @return time in nanoseconds
+     */
+    public long getTotalTime() {
+      long total = 0;
+      for (final Phase phase : Phase.values()) {
+        if (phase != Phase.TRANSFORM) {
+          total += times.get(phase.ordinal());
+        }
+      }
+      return total;
+    }
+  }
+
+  private static final int SLOWEST_FILES = 5;
+
+  private final FileMetrics totals = new FileMetrics();
+  private final ConcurrentMap<String, FileMetrics> files =
+      new ConcurrentHashMap<>();
+  private volatile long wallTime;
+
+  /**
+   * Adds time spent in a phase.
+   * @param phase phase
+   * @param file source file the time was spent on, or null if not for a
+   *          specific file
+   * @param nanos time in nanoseconds
+   */
+  public void addTime(final Phase phase, final String file, final long nanos) {
+    totals.times.addAndGet(phase.ordinal(), nanos);
+    if (file != null) {
+      getFile(file).times.addAndGet(phase.ordinal(), nanos);
+    }
+  }
+
+  /**
+   * Adds to a counter.
+   * @param counter counter
+   * @param file source file counted, or null if not for a specific file
+   * @param value value to add
+   */
+  public void add(final Counter counter, final String file, final long value) {
+    totals.counts.addAndGet(counter.ordinal(), value);
+    if (file != null) {
+      getFile(file).counts.addAndGet(counter.ordinal(), value);
+    }
+  }
+
+  public long getCount(final Counter counter) {
+    return totals.getCount(counter);
+  }
+
+  public long getTime(final Phase phase) {
+    return totals.getTime(phase);
+  }
+
+  /**
+   * Returns the metrics per source file, sorted on file name.
+   * @return metrics per file
+   */
+  public Map<String, FileMetrics> getFiles() {
+    return new TreeMap<>(files);
+  }
+
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  /**
+   * Sets the wall time of the complete run.
+   * @param wallTime time in nanoseconds
+   */
+  public void setWallTime(final long wallTime) {
+    this.wallTime = wallTime;
+  }
+
+  private FileMetrics getFile(final String file) {
+    FileMetrics fileMetrics = files.get(file);
+    if (fileMetrics == null) {
+      final FileMetrics newMetrics = new FileMetrics();
+      fileMetrics = files.putIfAbsent(file, newMetrics);
+      if (fileMetrics == null) {
+        fileMetrics = newMetrics;
+      }
+    }
+    return fileMetrics;
+  }
+
+  /**
+   * Returns a human readable summary: time per phase, the counters and the
+   * slowest files.
+   * @return summary
+   */
+  public String getSummary() {
+    final StringBuilder sb = new StringBuilder("Run took ")
+        .append(toMillis(wallTime)).append(" ms");
+    for (final Phase phase : Phase.values()) {
+      sb.append("\n  ").append(name(phase)).append(": ")
+      .append(toMillis(getTime(phase))).append(" ms");
+    }
+    for (final Counter counter : Counter.values()) {
+      sb.append("\n  ").append(name(counter)).append(": ")
+      .append(getCount(counter));
+    }
+    final List<Entry<String, FileMetrics>> slowest = getSlowestFiles();
+    if (!slowest.isEmpty()) {
+      sb.append("\n  slowest files:");
+      for (final Entry<String, FileMetrics> entry : slowest) {
+        sb.append("\n    ").append(entry.getKey()).append(": ")
+        .append(toMillis(entry.getValue().getTotalTime())).append(" ms");
+      }
+    }
+    return sb.toString();
+  }
+
+  private List<Entry<String, FileMetrics>> getSlowestFiles() {
+    final List<Entry<String, FileMetrics>> entries =
+        new ArrayList<>(getFiles().entrySet());
+    Collections.sort(entries, new Comparator<Entry<String, FileMetrics>>() {
+      @Override
+      public int compare(final Entry<String, FileMetrics> o1,
+          final Entry<String, FileMetrics> o2) {
+        return Long.compare(o2.getValue().getTotalTime(),
+            o1.getValue().getTotalTime());
+      }
+    });
+    return entries.subList(0, Math.min(SLOWEST_FILES, entries.size()));
+  }
+
+  /**
+   * Writes all metrics as JSON. Times are in nanoseconds.
+   * @param out output to write to
+   * @throws IOException
+   */
+  public void writeJson(final Appendable out) throws IOException {
+    out.append("{\n  \"wallTime\": ").append(String.valueOf(wallTime))
+    .append(",\n  \"totals\": ");
+    writeJson(out, totals);
+    out.append(",\n  \"files\": {");
+    boolean first = true;
+    for (final Entry<String, FileMetrics> entry : getFiles().entrySet()) {
+      out.append(first ? "\n    " : ",\n    ");
+      first = false;
+      writeJsonString(out, entry.getKey());
+      out.append(": ");
+      writeJson(out, entry.getValue());
+    }
+    out.append(first ? "}\n}\n" : "\n  }\n}\n");
+  }
+
+  private static void writeJson(final Appendable out,
+      final FileMetrics fileMetrics) throws IOException {
+    out.append('{');
+    String sep = "";
+    for (final Phase phase : Phase.values()) {
+      out.append(sep).append('"').append(name(phase)).append("\": ")
+      .append(String.valueOf(fileMetrics.getTime(phase)));
+      sep = ", ";
+    }
+    for (final Counter counter : Counter.values()) {
+      out.append(sep).append('"').append(name(counter)).append("\": ")
+      .append(String.valueOf(fileMetrics.getCount(counter)));
+    }
+    out.append('}');
+  }
+
+  private static void writeJsonString(final Appendable out,
+      final String value) throws IOException {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < ' ') {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+  private static String name(final Enum<?> value) {
+    return value.name().toLowerCase(Locale.ENGLISH);
+  }
+
+  private static long toMillis(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output;
+
+import java.io.IOException;
+
+/**
+ * Line oriented writer for generated code. It keeps track of the current
+ * indentation, so printers only need to mark where a block starts and ends.
+ * Indentation and new lines are appended from cached strings.
+ */
+public class CodeWriter implements Appendable {
+
+  private final Appendable out;
+  private int indent;
+
+  /**
+   * @param out output to write the code to
+   */
+  public CodeWriter(final Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Increases the indentation of lines started after this call.
+   * @return this writer
+   */
+  public CodeWriter indentIn() {
+    indent++;
+    return this;
+  }
+
+  /**
+   * Decreases the indentation of lines started after this call.
+   * @return this writer
+   */
+  public CodeWriter indentOut() {
+    if (indent == 0) {
+      throw new IllegalStateException("Indentation already at 0");
+    }
+    indent--;
+    return this;
+  }
+
+  /**
+   * Starts a new line by appending the current indentation.
+   * @return this writer
+   * @throws IOException
+   */
+  public CodeWriter indent() throws IOException {
+    PrintUtil.indent(out, indent);
+    return this;
+  }
+
+  /**
+   * Appends the (multi-line) text, each line with the current indentation.
+   * @param text text to append, nothing is appended if null
+   * @return this writer
+   * @throws IOException
+   */
+  public CodeWriter lines(final String text) throws IOException {
+    PrintUtil.indent(out, text, indent);
+    return this;
+  }
+
+  /**
+   * Ends the current line.
+   * @return this writer
+   * @throws IOException
+   */
+  public CodeWriter nl() throws IOException {
+    PrintUtil.nl(out);
+    return this;
+  }
+
+  /**
+   * Ends the current line and appends an empty line.
+   * @return this writer
+   * @throws IOException
+   */
+  public CodeWriter nl2() throws IOException {
+    PrintUtil.nl2(out);
+    return this;
+  }
+
+  /**
+   * Ends the current line and starts a new line.
+   * @return this writer
+   * @throws IOException
+   */
+  public CodeWriter nlIndent() throws IOException {
+    PrintUtil.nlIndent(out, indent);
+    return this;
+  }
+
+  public int getIndent() {
+    return indent;
+  }
+
+  @Override
+  public CodeWriter append(final CharSequence csq) throws IOException {
+    out.append(csq);
+    return this;
+  }
+
+  @Override
+  public CodeWriter append(final CharSequence csq, final int start,
+      final int end) throws IOException {
+    out.append(csq, start, end);
+    return this;
+  }
+
+  @Override
+  public CodeWriter append(final char c) throws IOException {
+    out.append(c);
+    return this;
+  }
+}
@@ -17,18 +17,23 @@ package gruifo.output;
 
 import gruifo.lang.js.JsFile;
 
+import java.io.IOException;
+
 /**
- * Generic interface for outputing generated code to file.
+ * Generic interface for outputing generated code to file. When files are
+ * generated with more than 1 thread the methods are called concurrently, so
+ * implementations must be thread-safe.
  */
 public interface FilePrinter {
 
   /**
-   * Prints the java file to a source file. The returned string is written to
-   * file.
+   * Prints the java file to a source file. The file is appended to the output
+   * while it's printed, so the whole file doesn't need to be in memory.
    * @param javaFile file to print
-   * @return String representation of the file.
+   * @param out output to append the file to
+   * @throws IOException exception thrown by the output
    */
-  String printFile(JsFile javaFile);
+  void printFile(JsFile javaFile, Appendable out) throws IOException;
 
   /**
    * Returns true if this file should not be ignored and thus generated.
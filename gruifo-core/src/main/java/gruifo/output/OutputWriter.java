@@ -0,0 +1,307 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output;
+
+import gruifo.lang.js.JsFile;
+import gruifo.metrics.Metrics;
+import gruifo.metrics.Metrics.Counter;
+import gruifo.metrics.Metrics.Phase;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prints JavaScript files with a {@link FilePrinter} and writes them as Java
+ * files to the output directory.
+ *
+ * <p>Files are printed directly to a buffered UTF-8 encoded temporary file
+ * next to the target file, so a file is never completely kept in memory. The
+ * temporary file is then renamed to the target file, so a file is never seen
+ * half written. When skipping unchanged files, the temporary file is deleted
+ * instead if its content is the same as the file on disk.
+ *
+ * <p>With more than 1 thread the files are divided over a pool of worker
+ * threads. Each worker does all the work for a file, including the disk I/O:
+ * it prints the file to the temporary file, compares it and moves it in
+ * place. In the metrics, writing the temporary file is part of the print
+ * phase; the write phase is the compare and the move.
+ */
+public class OutputWriter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OutputWriter.class);
+
+  private static final String JAVA_EXT = ".java";
+  private static final String TMP_EXT = ".tmp";
+  private static final int COMPARE_BUFFER_SIZE = 8192;
+
+  private final FilePrinter printer;
+  private final File outputPath;
+  private final int threads;
+  private final AtomicInteger unchanged = new AtomicInteger();
+  private boolean skipUnchanged;
+  private Metrics metrics = new Metrics();
+
+  /**
+   * @param printer printer to print the files with, must be thread-safe if
+   *          more than 1 thread is used
+   * @param outputPath directory to write the files to
+   * @param threads number of threads to print the files with
+   */
+  public OutputWriter(final FilePrinter printer, final File outputPath,
+      final int threads) {
+    this.printer = printer;
+    this.outputPath = outputPath;
+    this.threads = threads;
+  }
+
+  /**
+   * Sets if files with the same content as the file on disk should not be
+   * written.
+   * @param skipUnchanged true to skip files with unchanged content
+   */
+  public void setSkipUnchanged(final boolean skipUnchanged) {
+    this.skipUnchanged = skipUnchanged;
+  }
+
+  /**
+   * Sets the metrics to record the print and write time and the number of
+   * files and bytes written in.
+   * @param metrics metrics
+   */
+  public void setMetrics(final Metrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Prints and writes all files not ignored by the printer.
+   * @param jsFiles files to write
+   */
+  public void writeFiles(final Collection<JsFile> jsFiles) {
+    if (threads == 1 || jsFiles.size() < 2) {
+      for (final JsFile jsFile : jsFiles) {
+        if (!printer.ignored(jsFile)) {
+          commit(print(jsFile));
+        }
+      }
+    } else {
+      writeParallel(jsFiles);
+    }
+    if (skipUnchanged) {
+      LOG.info("{} files unchanged and not written.", unchanged.get());
+    }
+  }
+
+  private void writeParallel(final Collection<JsFile> jsFiles) {
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>(jsFiles.size());
+      for (final JsFile jsFile : jsFiles) {
+        futures.add(pool.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            if (!printer.ignored(jsFile)) {
+              commit(print(jsFile));
+            }
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while writing files", e);
+    } catch (final ExecutionException e) {
+      throw new RuntimeException("Exception writing files", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the path of the Java file for the given JavaScript file, relative
+   * to the output directory.
+   * @param jsFile JavaScript file
+   * @return relative path of the Java file
+   */
+  public static String getRelativePath(final JsFile jsFile) {
+    final String packagePath = jsFile.getPackageName().replace('.', '/');
+    return (packagePath.isEmpty() ? "" : packagePath + '/')
+        + jsFile.getClassOrInterfaceName() + JAVA_EXT;
+  }
+
+  /**
+   * Prints the file to a temporary file.
+   * @param jsFile file to print
+   * @return the printed file or null if it could not be written
+   */
+  private PrintedFile print(final JsFile jsFile) {
+    final File file = new File(outputPath, getRelativePath(jsFile));
+    file.getParentFile().mkdirs();
+    Path tmp = null;
+    try {
+      final long start = System.nanoTime();
+      tmp = createTmpFile(file);
+      try (final Writer writer =
+          Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        printer.printFile(jsFile, writer);
+      }
+      final String fileName = jsFile.getOriginalFileName();
+      metrics.addTime(Phase.PRINT, fileName, System.nanoTime() - start);
+      metrics.add(Counter.BYTES_WRITTEN, fileName, Files.size(tmp));
+      final PrintedFile printedFile = new PrintedFile(jsFile, tmp, file);
+      tmp = null;
+      return printedFile;
+    } catch (final IOException e) {
+      LOG.error("Exception writing file:" + jsFile.getOriginalFileName(), e);
+      return null;
+    } finally {
+      deleteQuietly(tmp);
+    }
+  }
+
+  /**
+   * Creates a new temporary file next to the target file. Unlike
+   * {@link Files#createTempFile}, which creates files only readable by the
+   * owner, the file is created with the default permissions, so the moved
+   * file gets the same permissions as a file written directly.
+   */
+  private static Path createTmpFile(final File file) throws IOException {
+    final Path dir = file.getParentFile().toPath();
+    while (true) {
+      try {
+        return Files.createFile(dir.resolve(file.getName() + '.'
+            + (ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE)
+            + TMP_EXT));
+      } catch (final FileAlreadyExistsException e) {
+        // try another name.
+      }
+    }
+  }
+
+  /**
+   * Moves the printed temporary file to the target file, or deletes it if the
+   * target file is unchanged.
+   * @param printedFile printed file, ignored if null
+   */
+  private void commit(final PrintedFile printedFile) {
+    if (printedFile == null) {
+      return;
+    }
+    final Path file = printedFile.file.toPath();
+    final String fileName = printedFile.jsFile.getOriginalFileName();
+    final long start = System.nanoTime();
+    try {
+      if (skipUnchanged && isUnchanged(file, printedFile.tmp)) {
+        unchanged.incrementAndGet();
+        metrics.add(Counter.FILES_UNCHANGED, fileName, 1);
+      } else {
+        try {
+          Files.move(printedFile.tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+          Files.move(printedFile.tmp, file,
+              StandardCopyOption.REPLACE_EXISTING);
+        }
+        metrics.add(Counter.FILES_WRITTEN, fileName, 1);
+      }
+      metrics.addTime(Phase.WRITE, fileName, System.nanoTime() - start);
+    } catch (final IOException e) {
+      LOG.error("Exception writing file:"
+          + printedFile.jsFile.getOriginalFileName(), e);
+    } finally {
+      deleteQuietly(printedFile.tmp);
+    }
+  }
+
+  private static boolean isUnchanged(final Path file, final Path tmp)
+      throws IOException {
+    if (!Files.isRegularFile(file) || Files.size(file) != Files.size(tmp)) {
+      return false;
+    }
+    try (final InputStream in1 = Files.newInputStream(file);
+        final InputStream in2 = Files.newInputStream(tmp)) {
+      final byte[] buffer1 = new byte[COMPARE_BUFFER_SIZE];
+      final byte[] buffer2 = new byte[COMPARE_BUFFER_SIZE];
+      int read;
+      while ((read = in1.read(buffer1)) > 0) {
+        readFully(in2, buffer2, read);
+        for (int i = 0; i < read; i++) {
+          if (buffer1[i] != buffer2[i]) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void readFully(final InputStream in, final byte[] buffer,
+      final int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      final int read = in.read(buffer, offset, length - offset);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      offset += read;
+    }
+  }
+
+  private static void deleteQuietly(final Path path) {
+    if (path != null) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (final IOException e) {
+        LOG.warn("Could not delete temporary file: {}", path, e);
+      }
+    }
+  }
+
+  private static class PrintedFile {
+    private final JsFile jsFile;
+    private final Path tmp;
+    private final File file;
+
+    public PrintedFile(final JsFile jsFile, final Path tmp, final File file) {
+      this.jsFile = jsFile;
+      this.tmp = tmp;
+      this.file = file;
+    }
+  }
+}
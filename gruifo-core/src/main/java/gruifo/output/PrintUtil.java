@@ -15,14 +15,33 @@
  */
 package gruifo.output;
 
+import java.io.IOException;
+
 /**
  * Util class to add new lines and indentation and other useful methods for
  * printing.
  */
 public final class PrintUtil {
 
-  private static final String NL_S = "\n";
   private static final char NL = '\n';
+  private static final String INDENT = "  ";
+  /**
+   * Number of indentations and new lines for which the strings are cached.
+   */
+  private static final int CACHED = 32;
+  private static final String[] INDENTS = new String[CACHED];
+  private static final String[] NLS = new String[CACHED];
+
+  static {
+    final StringBuilder indents = new StringBuilder();
+    final StringBuilder nls = new StringBuilder();
+    for (int i = 0; i < CACHED; i++) {
+      INDENTS[i] = indents.toString();
+      NLS[i] = nls.toString();
+      indents.append(INDENT);
+      nls.append(NL);
+    }
+  }
 
   private PrintUtil() {
     // util
@@ -36,14 +55,31 @@ public final class PrintUtil {
    * @param text multi-line text to append
    * @param indent number of times to append the 2 spaces indentation
    */
-  public static void indent(final StringBuffer buffer, final String text,
-      final int indent) {
-    if (text != null) {
-      for (final String row : text.split(NL_S)) {
-        indent(buffer, indent);
-        buffer.append(row);
-        nl(buffer);
-      };
+  public static void indent(final Appendable buffer, final String text,
+      final int indent) throws IOException {
+    if (text == null) {
+      return;
+    }
+    // Like String.split, trailing empty lines are ignored, unless the text is
+    // empty.
+    int end = text.length();
+    while (end > 0 && text.charAt(end - 1) == NL) {
+      end--;
+    }
+    if (end == 0 && !text.isEmpty()) {
+      return;
+    }
+    int start = 0;
+    while (true) {
+      final int nl = text.indexOf(NL, start);
+      final int rowEnd = nl < 0 || nl > end ? end : nl;
+      indent(buffer, indent);
+      buffer.append(text, start, rowEnd);
+      nl(buffer);
+      if (rowEnd == end) {
+        break;
+      }
+      start = rowEnd + 1;
     }
   }
 
@@ -52,7 +88,8 @@ public final class PrintUtil {
    * @param buffer buffer to append
    * @param indent number of times to append the 2 spaces indentation
    */
-  public static void nlIndent(final StringBuffer buffer, final int indent) {
+  public static void nlIndent(final Appendable buffer, final int indent)
+      throws IOException {
     nl(buffer);
     indent(buffer, indent);
   }
@@ -62,15 +99,16 @@ public final class PrintUtil {
    * @param buffer buffer to append
    * @param indent number of times to append the 2 spaces indentation
    */
-  public static void indent(final StringBuffer buffer, final int indent) {
-    buffer.append(new String(new char[indent * 2]).replace('\0', ' '));
+  public static void indent(final Appendable buffer, final int indent)
+      throws IOException {
+    repeat(buffer, INDENTS, indent, INDENT);
   }
 
   /**
    * Appends a new line to the buffer.
    * @param buffer buffer to append
    */
-  public static void nl(final StringBuffer buffer) {
+  public static void nl(final Appendable buffer) throws IOException {
     buffer.append(NL);
   }
 
@@ -78,7 +116,7 @@ public final class PrintUtil {
    * Appends 2 new lines to the buffer.
    * @param buffer buffer to append
    */
-  public static void nl2(final StringBuffer buffer) {
+  public static void nl2(final Appendable buffer) throws IOException {
     nl(buffer, 2);
   }
 
@@ -87,8 +125,21 @@ public final class PrintUtil {
    * @param buffer buffer to append
    * @param count number of times to append new line
    */
-  public static void nl(final StringBuffer buffer, final int count) {
-    buffer.append(new String(new char[count]).replace('\0', NL));
+  public static void nl(final Appendable buffer, final int count)
+      throws IOException {
+    repeat(buffer, NLS, count, NLS[1]);
+  }
+
+  private static void repeat(final Appendable buffer, final String[] cache,
+      final int count, final String single) throws IOException {
+    if (count < CACHED) {
+      buffer.append(cache[count]);
+    } else {
+      buffer.append(cache[CACHED - 1]);
+      for (int i = CACHED - 1; i < count; i++) {
+        buffer.append(single);
+      }
+    }
   }
 
   /**
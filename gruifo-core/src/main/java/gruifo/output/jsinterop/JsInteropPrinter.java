@@ -19,6 +19,7 @@ import gruifo.lang.java.JClass;
 import gruifo.lang.js.JsFile;
 import gruifo.output.FilePrinter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Set;
@@ -28,8 +29,9 @@ public class JsInteropPrinter implements FilePrinter {
   private static final String GWT_JS_PACKAGE = "com.google.gwt.core.client.js";
 
   @Override
-  public String printFile(final JsFile JClass) {
-    return "TODO";
+  public void printFile(final JsFile JClass, final Appendable out)
+      throws IOException {
+    out.append("TODO");
   }
 
   @Override
@@ -37,8 +39,8 @@ public class JsInteropPrinter implements FilePrinter {
     return false;
   }
 
-  private String printFile(final JClass jFile) {
-    final StringBuffer buffer = new StringBuffer();
+  private void printFile(final JClass jFile, final Appendable buffer)
+      throws IOException {
     buffer.append(jFile.getHeaderComment());
     writePackageName(buffer, jFile.getPackageName());
     writeImports(buffer, jFile.getImports());
@@ -48,17 +50,17 @@ public class JsInteropPrinter implements FilePrinter {
     // create file
     // write properties
     buffer.append("}\n"); // close file
-    return buffer.toString();
   }
 
-  private void writePackageName(final StringBuffer buffer,
-      final String packageName) {
+  private void writePackageName(final Appendable buffer,
+      final String packageName) throws IOException {
     buffer.append("package ");
     buffer.append(packageName);
     buffer.append(";\n\n");
   }
 
-  private void writeImports(final StringBuffer buffer, final Set<String> imports) {
+  private void writeImports(final Appendable buffer, final Set<String> imports)
+      throws IOException {
     final ArrayList<String> importList = new ArrayList<>(imports);
     addGwtImports(importList);
     Collections.sort(importList);
@@ -75,7 +77,7 @@ public class JsInteropPrinter implements FilePrinter {
     importList.add(GWT_JS_PACKAGE + "JsProperty");
   }
 
-  private void writeInterface(final StringBuffer buffer, final JClass jFile) {
+  private void writeInterface(final Appendable buffer, final JClass jFile) {
     /*    if (jFile.isClass()) {
       buffer.append("@JsInterface\n"); //(prototype="Window")
     }
@@ -88,7 +90,7 @@ public class JsInteropPrinter implements FilePrinter {
     buffer.append(" {\n");
      */  }
 
-  private void writeMethods(final StringBuffer buffer, final JClass jFile) {
+  private void writeMethods(final Appendable buffer, final JClass jFile) {
     /*    for (final JMethod method : jFile.getMethods()) {
       buffer.append(method.getElement().getComment());
       buffer.append("\n  ");
@@ -16,8 +16,9 @@
 package gruifo.output.jsni;
 
 import gruifo.lang.java.JClass.EnumValue;
-import gruifo.output.PrintUtil;
+import gruifo.output.CodeWriter;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -59,71 +60,73 @@ import java.util.List;
  */
 public class JSNIEnumPrinter {
 
-  public void printEnum(final StringBuffer buffer, final int indent,
-      final String packageName, final String enumName,
-      final boolean _static, final List<EnumValue> enumValues) {
-    PrintUtil.indent(buffer, indent);
-    buffer.append("public ");
+  public void printEnum(final CodeWriter writer, final String packageName,
+      final String enumName, final boolean _static,
+      final List<EnumValue> enumValues) throws IOException {
+    writer.indent();
+    writer.append("public ");
     if (_static) {
-      buffer.append("static ");
+      writer.append("static ");
     }
-    buffer.append("class ");
-    buffer.append(enumName);
-    buffer.append(" extends ");
-    buffer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT);
-    buffer.append(" {");
-    PrintUtil.nl(buffer);
-    printEnumValues(buffer, indent + 1, packageName, enumName, enumValues);
-    printConstructor(buffer, indent + 1, enumName);
-    printValueMethod(buffer, indent + 1, enumValues.get(0).getType());
+    writer.append("class ");
+    writer.append(enumName);
+    writer.append(" extends ");
+    writer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT);
+    writer.append(" {");
+    writer.nl();
+    writer.indentIn();
+    printEnumValues(writer, packageName, enumName, enumValues);
+    printConstructor(writer, enumName);
+    printValueMethod(writer, enumValues.get(0).getType());
+    writer.indentOut();
   }
 
-  private void printEnumValues(final StringBuffer buffer, final int indent,
+  private void printEnumValues(final CodeWriter writer,
       final String packageName, final String enumName,
-      final List<EnumValue> enumValues) {
+      final List<EnumValue> enumValues) throws IOException {
     for (final EnumValue enumValue : enumValues) {
       final String name = enumValue.getName();
-      PrintUtil.nlIndent(buffer, indent);
-      buffer.append("public static final ");
-      buffer.append(enumName);
-      buffer.append(' ');
-      buffer.append(name);
-      buffer.append(" = create");
-      buffer.append(name);
-      buffer.append("();");
-      PrintUtil.nl(buffer);
-      PrintUtil.nlIndent(buffer, indent);
-      buffer.append("private static final native ");
-      buffer.append(enumName);
-      buffer.append(" create");
-      buffer.append(name);
-      buffer.append("() /*-{");
-      PrintUtil.nlIndent(buffer, indent + 1);
-      buffer.append("return $wnd.");
-      buffer.append(packageName + "." + enumName);
-      buffer.append('.');
-      buffer.append(name);
-      buffer.append(';');
-      PrintUtil.nlIndent(buffer, indent);
-      buffer.append("}-*/;");
-      PrintUtil.nl(buffer);
+      writer.nlIndent();
+      writer.append("public static final ");
+      writer.append(enumName);
+      writer.append(' ');
+      writer.append(name);
+      writer.append(" = create");
+      writer.append(name);
+      writer.append("();");
+      writer.nl();
+      writer.nlIndent();
+      writer.append("private static final native ");
+      writer.append(enumName);
+      writer.append(" create");
+      writer.append(name);
+      writer.append("() /*-{");
+      writer.indentIn().nlIndent();
+      writer.append("return $wnd.");
+      writer.append(packageName + "." + enumName);
+      writer.append('.');
+      writer.append(name);
+      writer.append(';');
+      writer.indentOut().nlIndent();
+      writer.append("}-*/;");
+      writer.nl();
     }
   }
 
-  private void printConstructor(final StringBuffer buffer, final int indent,
-      final String enumName) {
-    PrintUtil.nlIndent(buffer, indent);
-    buffer.append("protected ");
-    buffer.append(enumName);
-    buffer.append("() {}");
-    PrintUtil.nlIndent(buffer, indent);
+  private void printConstructor(final CodeWriter writer,
+      final String enumName) throws IOException {
+    writer.nlIndent();
+    writer.append("protected ");
+    writer.append(enumName);
+    writer.append("() {}");
+    writer.nlIndent();
   }
 
-  private void printValueMethod(final StringBuffer buffer, final int indent,
-      final String type) {
-    PrintUtil.nlIndent(buffer, indent);
-    buffer.append("public final native ");
-    buffer.append(type);
-    buffer.append(" value() /*-{ return this; }-*/;");
+  private void printValueMethod(final CodeWriter writer, final String type)
+      throws IOException {
+    writer.nlIndent();
+    writer.append("public final native ");
+    writer.append(type);
+    writer.append(" value() /*-{ return this; }-*/;");
   }
 }
@@ -17,50 +17,53 @@ package gruifo.output.jsni;
 
 import gruifo.lang.java.JClass;
 import gruifo.lang.java.JParam;
+import gruifo.output.CodeWriter;
 import gruifo.output.PrintUtil;
 
+import java.io.IOException;
+
 /**
  * Prints Field members.
  */
 public class JSNIFieldPrinter {
 
-  public void printFields(final StringBuffer buffer, final int indent,
-      final JClass jFile) {
+  public void printFields(final CodeWriter writer, final JClass jFile)
+      throws IOException {
     if (!jFile.isInterface()) {
       for (final JParam field : jFile.getFields()) {
-        printGetter(buffer, indent, field);
+        printGetter(writer, field);
         if (!field.isFinal()) {
-          printSetter(buffer, indent, field);
+          printSetter(writer, field);
         }
       }
     }
   }
 
-  private void printGetter(final StringBuffer buffer, final int indent,
-      final JParam field) {
-    PrintUtil.indent(buffer, field.getJavaDoc(), indent);
-    PrintUtil.indent(buffer, indent);
-    buffer.append("public ");
+  private void printGetter(final CodeWriter writer, final JParam field)
+      throws IOException {
+    writer.lines(field.getJavaDoc());
+    writer.indent();
+    writer.append("public ");
     if (field.isStatic()) {
-      buffer.append("static ");
+      writer.append("static ");
     }
-    buffer.append("final native ");
-    buffer.append(field.getType());
-    buffer.append(" get");
-    printFieldName(buffer, field);
+    writer.append("final native ");
+    writer.append(field.getType());
+    writer.append(" get");
+    printFieldName(writer, field);
     if (field.isMultiField()) {
-      buffer.append(fixMultiTypeField(field));
+      writer.append(fixMultiTypeField(field));
     }
-    buffer.append("() /*-{");
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, indent + 1);
-    buffer.append("return ");
-    printFieldVariable(buffer, field);
-    buffer.append(';');
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, indent);
-    buffer.append("}-*/;");
-    PrintUtil.nl2(buffer);
+    writer.append("() /*-{");
+    writer.nl();
+    writer.indentIn().indent();
+    writer.append("return ");
+    printFieldVariable(writer, field);
+    writer.append(';');
+    writer.nl();
+    writer.indentOut().indent();
+    writer.append("}-*/;");
+    writer.nl2();
   }
 
   private String fixMultiTypeField(final JParam field) {
@@ -72,40 +75,42 @@ public class JSNIFieldPrinter {
         dotIdx < 0 ? subString : subString.substring(dotIdx + 1));
   }
 
-  private void printSetter(final StringBuffer buffer, final int indent,
-      final JParam field) {
-    PrintUtil.indent(buffer, field.getJavaDoc(), indent);
-    PrintUtil.indent(buffer, indent);
-    buffer.append("public ");
+  private void printSetter(final CodeWriter writer, final JParam field)
+      throws IOException {
+    writer.lines(field.getJavaDoc());
+    writer.indent();
+    writer.append("public ");
     if (field.isStatic()) {
-      buffer.append("static ");
+      writer.append("static ");
     }
-    buffer.append("final native void");
-    buffer.append(" set");
-    printFieldName(buffer, field);
-    buffer.append('(');
-    buffer.append(field.getType());
-    buffer.append(' ');
-    printFieldAsVar(buffer, field);
-    buffer.append(") /*-{");
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, indent + 1);
-    printFieldVariable(buffer, field);
-    buffer.append(" = ");
-    printFieldAsVar(buffer, field);
-    buffer.append(';');
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, indent);
-    buffer.append("}-*/;");
-    PrintUtil.nl2(buffer);
+    writer.append("final native void");
+    writer.append(" set");
+    printFieldName(writer, field);
+    writer.append('(');
+    writer.append(field.getType());
+    writer.append(' ');
+    printFieldAsVar(writer, field);
+    writer.append(") /*-{");
+    writer.nl();
+    writer.indentIn().indent();
+    printFieldVariable(writer, field);
+    writer.append(" = ");
+    printFieldAsVar(writer, field);
+    writer.append(';');
+    writer.nl();
+    writer.indentOut().indent();
+    writer.append("}-*/;");
+    writer.nl2();
   }
 
-  private void printFieldName(final StringBuffer buffer, final JParam field) {
-    buffer.append(PrintUtil.firstCharUpper(getFieldName(field)));
+  private void printFieldName(final Appendable out, final JParam field)
+      throws IOException {
+    out.append(PrintUtil.firstCharUpper(getFieldName(field)));
   }
 
-  private void printFieldAsVar(final StringBuffer buffer, final JParam field) {
-    buffer.append(PrintUtil.firstCharLower(getFieldName(field)));
+  private void printFieldAsVar(final Appendable out, final JParam field)
+      throws IOException {
+    out.append(PrintUtil.firstCharLower(getFieldName(field)));
   }
 
   private String getFieldName(final JParam field) {
@@ -117,14 +122,15 @@ public class JSNIFieldPrinter {
     return name;
   }
 
-  private void printFieldVariable(final StringBuffer buffer, final JParam field) {
+  private void printFieldVariable(final Appendable out, final JParam field)
+      throws IOException {
     if (field.isStatic()) {
-      buffer.append("$wnd.");
-      buffer.append(field.getName());
+      out.append("$wnd.");
+      out.append(field.getName());
     } else {
-      buffer.append("this['");
-      buffer.append(field.getName());
-      buffer.append("']");
+      out.append("this['");
+      out.append(field.getName());
+      out.append("']");
     }
   }
 
@@ -19,75 +19,79 @@ import gruifo.lang.AccessType;
 import gruifo.lang.java.JClass;
 import gruifo.lang.java.JMethod;
 import gruifo.lang.java.JParam;
-import gruifo.output.PrintUtil;
+import gruifo.output.CodeWriter;
+
+import java.io.IOException;
 
 /**
  * Prints java methods.
  */
 class JSNIMethodPrinter {
 
-  public void printMethods(final StringBuffer buffer, final int indent,
-      final JClass jFile) {
+  public void printMethods(final CodeWriter writer, final JClass jFile)
+      throws IOException {
     for (final JMethod method : jFile.getMethods()) {
       if (method.isAbstractMethod() && !jFile.isInterface()) {
         continue;
       }
-      PrintUtil.indent(buffer, method.getJsDoc(), indent);
-      PrintUtil.indent(buffer, indent);
-      printModifiers(buffer, jFile, method);
+      writer.lines(method.getJsDoc());
+      writer.indent();
+      printModifiers(writer, jFile, method);
       if (method.getGenericType() != null) {
-        buffer.append('<');
-        buffer.append(method.getGenericType());
-        buffer.append(" extends ");
-        buffer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT); //FIXME not hardcode extends generics
-        buffer.append("> ");
+        writer.append('<');
+        writer.append(method.getGenericType());
+        writer.append(" extends ");
+        writer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT); //FIXME not hardcode extends generics
+        writer.append("> ");
       }
-      buffer.append(method.getReturn());
-      buffer.append(' ');
-      buffer.append(method.getMethodName());
-      buffer.append('(');
-      printMethodParam(buffer, method, true);
-      buffer.append(')');
+      writer.append(method.getReturn());
+      writer.append(' ');
+      writer.append(method.getMethodName());
+      writer.append('(');
+      printMethodParam(writer, method, true);
+      writer.append(')');
       if (method.isAbstractMethod() || jFile.isInterface()) {
-        buffer.append(';');
+        writer.append(';');
       } else {
-        buffer.append(" /*-{");
-        PrintUtil.nl(buffer);
-        printMethodBody(buffer, indent + 1, method);
-        PrintUtil.indent(buffer, indent);
-        buffer.append("}-*/;");
+        writer.append(" /*-{");
+        writer.nl();
+        writer.indentIn();
+        printMethodBody(writer, method);
+        writer.indentOut();
+        writer.indent();
+        writer.append("}-*/;");
       }
-      PrintUtil.nl2(buffer);
+      writer.nl2();
     }
   }
 
-  private void printModifiers(final StringBuffer buffer, final JClass jFile,
-      final JMethod method) {
+  private void printModifiers(final Appendable out, final JClass jFile,
+      final JMethod method) throws IOException {
     if (!jFile.isInterface()) {
-      buffer.append(appendAccessType(method.getAccessType()));
+      out.append(appendAccessType(method.getAccessType()));
       if (method.isAbstractMethod()) {
-        buffer.append("abstract ");
+        out.append("abstract ");
       } else {
         if (method.isStaticMethod()) {
-          buffer.append("static ");
+          out.append("static ");
         }
-        buffer.append("final native ");
+        out.append("final native ");
       }
     }
   }
 
-  public static void printMethodParam(final StringBuffer buffer,
-      final JMethod method, final boolean withType) {
+  public static void printMethodParam(final Appendable out,
+      final JMethod method, final boolean withType) throws IOException {
     boolean first = true;
     for (final JParam param : method.getParams()) {
       if (!first) {
-        buffer.append(", ");
+        out.append(", ");
       }
       if (withType) {
-        buffer.append(param.getType());
-        buffer.append(' ');
+        out.append(param.getType());
+        out.append(' ');
       }
-      buffer.append(param.getName());
+      out.append(param.getName());
       first = false;
     }
   }
@@ -112,16 +116,22 @@ class JSNIMethodPrinter {
     return asType;
   }
 
-  private void printMethodBody(final StringBuffer buffer,
-      final int indent, final JMethod method) {
-    PrintUtil.indent(buffer, indent);
-    buffer.append(isVoidType(method) ? "" : "return ");
-    buffer.append("this.");
-    buffer.append(method.getMethodName());
-    buffer.append('(');
-    printMethodParam(buffer, method, false);
-    buffer.append(");");
-    PrintUtil.nl(buffer);
+  private void printMethodBody(final CodeWriter writer, final JMethod method)
+      throws IOException {
+    writer.indent();
+    writer.append(isVoidType(method) ? "" : "return ");
+    if (method.isStaticMethod()) {
+      writer.append("$wnd.");
+      writer.append(method.getClassPath());
+      writer.append('.');
+    } else {
+      writer.append("this.");
+    }
+    writer.append(method.getMethodName());
+    writer.append('(');
+    printMethodParam(writer, method, false);
+    writer.append(");");
+    writer.nl();
   }
 
   private boolean isVoidType(final JMethod method) {
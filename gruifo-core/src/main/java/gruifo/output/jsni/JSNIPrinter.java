@@ -18,9 +18,14 @@ package gruifo.output.jsni;
 import gruifo.lang.java.JClass;
 import gruifo.lang.java.JMethod;
 import gruifo.lang.js.JsFile;
+import gruifo.metrics.Metrics;
+import gruifo.metrics.Metrics.Counter;
+import gruifo.metrics.Metrics.Phase;
 import gruifo.output.FilePrinter;
+import gruifo.output.CodeWriter;
 import gruifo.output.PrintUtil;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -35,223 +40,290 @@ import org.slf4j.LoggerFactory;
 public class JSNIPrinter implements FilePrinter {
   private static final Logger LOG = LoggerFactory.getLogger(JSNIPrinter.class);
 
-  private final Transformer transformer = new Transformer();
+  /**
+   * Default maximum number of overloads generated for a single method.
+   */
+  public static final int DEFAULT_MAX_OVERLOADS = 64;
+
+  private final TypeMapper typeMapper;
+  private final Transformer transformer;
   private final JSNIMethodPrinter mPrinter = new JSNIMethodPrinter();
   private final JSNIFieldPrinter fPrinter = new JSNIFieldPrinter();
   private final JSNIEnumPrinter ePrinter = new JSNIEnumPrinter();
+  private Metrics metrics;
+
+  public JSNIPrinter() {
+    this(new TypeMapper());
+  }
+
+  /**
+   * @param typeMapper type mapper to map JavaScript types to Java types
+   */
+  public JSNIPrinter(final TypeMapper typeMapper) {
+    this.typeMapper = typeMapper;
+    transformer = new Transformer(typeMapper);
+  }
+
+  /**
+   * Sets the maximum number of overloads generated for a single method.
+   * @param maxOverloads maximum number of overloads per method
+   * @see Transformer#setMaxOverloads(int)
+   */
+  public void setMaxOverloads(final int maxOverloads) {
+    transformer.setMaxOverloads(maxOverloads);
+  }
+
+  /**
+   * Sets the metrics to record the transform time and the number of
+   * generated methods in.
+   * @param metrics metrics or null to not record metrics
+   */
+  public void setMetrics(final Metrics metrics) {
+    this.metrics = metrics;
+  }
 
   @Override
-  public String printFile(final JsFile jsFile) {
-    return printFile(transformer.transform(jsFile));
+  public void printFile(final JsFile jsFile, final Appendable out)
+      throws IOException {
+    final long start = System.nanoTime();
+    final JClass jFile = transformer.transform(jsFile);
+    if (metrics != null) {
+      final String fileName = jsFile.getOriginalFileName();
+      metrics.addTime(Phase.TRANSFORM, fileName, System.nanoTime() - start);
+      metrics.add(Counter.OVERLOADS, fileName, countMethods(jFile));
+    }
+    printFile(jFile, out);
+  }
+
+  private static int countMethods(final JClass jFile) {
+    int count = jFile.getConstructors().size() + jFile.getMethods().size();
+    for (final JClass inner : jFile.getInnerJFiles()) {
+      count += countMethods(inner);
+    }
+    return count;
   }
 
   @Override
   public boolean ignored(final JsFile jsFile) {
-    return TypeMapper.INSTANCE.ignore(
+    return typeMapper.ignore(
         jsFile.getPackageName() + '.' + jsFile.getClassOrInterfaceName());
   }
 
+  /**
+   * Returns the Java file as String.
+   * @param jFile file to print
+   * @return Java file
+   */
   public String printFile(final JClass jFile) {
-    final int indent = 0;
-    final StringBuffer buffer = new StringBuffer();
-    buffer.append(jFile.getHeaderComment());
-    printPackageName(buffer, jFile.getPackageName());
-    printImports(buffer, jFile.getImports());
+    final StringBuilder builder = new StringBuilder();
+    try {
+      printFile(jFile, builder);
+    } catch (final IOException e) {
+      // can't happen, a StringBuilder doesn't throw IOExceptions.
+      throw new IllegalStateException(e);
+    }
+    return builder.toString();
+  }
+
+  public void printFile(final JClass jFile, final Appendable out)
+      throws IOException {
+    final CodeWriter writer = new CodeWriter(out);
+    writer.append(jFile.getHeaderComment());
+    printPackageName(writer, jFile.getPackageName());
+    printImports(writer, jFile.getImports());
     jFile.setStatic(false); //FIXME setting static should not be done here
-    printJClassOrEnum(jFile, indent, buffer);
-    return buffer.toString();
+    printJClassOrEnum(jFile, writer);
   }
 
-  private void printJClassOrEnum(final JClass jFile, final int indent,
-      final StringBuffer buffer) {
-    PrintUtil.indent(buffer, jFile.getClassDescription(), indent);
+  private void printJClassOrEnum(final JClass jFile, final CodeWriter writer)
+      throws IOException {
+    writer.lines(jFile.getClassDescription());
     if (jFile.getEnumValues().isEmpty()) {
-      printJClass(jFile, indent, buffer);
+      printJClass(jFile, writer);
     } else {
-      ePrinter.printEnum(buffer, indent, jFile.getPackageName(),
+      ePrinter.printEnum(writer, jFile.getPackageName(),
           jFile.getClassOrInterfaceName(), jFile.isStatic(),
           jFile.getEnumValues());
     }
-    PrintUtil.nl(buffer);
-    buffer.append('}'); // close file
-    PrintUtil.nl(buffer);
+    writer.nl();
+    writer.append('}'); // close file
+    writer.nl();
   }
 
-  private void printJClass(final JClass jFile, int indent,
-      final StringBuffer buffer) {
-    printClass(buffer, jFile, indent);
-    indent++;
-    printConstructors(indent, buffer, jFile);
-    fPrinter.printFields(buffer, indent, jFile);
-    mPrinter.printMethods(buffer, indent, jFile);
+  private void printJClass(final JClass jFile, final CodeWriter writer)
+      throws IOException {
+    printClass(writer, jFile);
+    writer.indentIn();
+    printConstructors(writer, jFile);
+    fPrinter.printFields(writer, jFile);
+    mPrinter.printMethods(writer, jFile);
     for (final JClass innerFile: jFile.getInnerJFiles()) {
       innerFile.setStatic(true); //FIXME setting static should not be done here
-      printJClassOrEnum(innerFile, indent, buffer);
+      printJClassOrEnum(innerFile, writer);
     }
+    writer.indentOut();
   }
 
-  private void printPackageName(final StringBuffer buffer,
-      final String packageName) {
-    buffer.append("package ");
-    buffer.append(packageName);
-    buffer.append(';');
-    PrintUtil.nl2(buffer);
+  private void printPackageName(final CodeWriter writer,
+      final String packageName) throws IOException {
+    writer.append("package ");
+    writer.append(packageName);
+    writer.append(';');
+    writer.nl2();
   }
 
-  private void printImports(final StringBuffer buffer,
-      final Set<String> imports) {
+  private void printImports(final CodeWriter writer,
+      final Set<String> imports) throws IOException {
     final ArrayList<String> importList = new ArrayList<>(imports);
     Collections.sort(importList);
     for (final String imp : importList) {
-      buffer.append("import ");
-      buffer.append(imp);
-      buffer.append(';');
-      PrintUtil.nl(buffer);
+      writer.append("import ");
+      writer.append(imp);
+      writer.append(';');
+      writer.nl();
     }
-    PrintUtil.nl(buffer);
+    writer.nl();
   }
 
-  private void printClass(final StringBuffer buffer, final JClass jFile,
-      final int indent) {
-    PrintUtil.indent(buffer, indent);
-    printClassInterfaceModifier(buffer, jFile);
-    buffer.append(jFile.getClassOrInterfaceName());
-    printClassGeneric(buffer, jFile.getClassGeneric());
-    printClassExtends(buffer, jFile);
-    printImplements(buffer, jFile.getImplements());
-    buffer.append(" {");
-    PrintUtil.nl(buffer);
+  private void printClass(final CodeWriter writer, final JClass jFile)
+      throws IOException {
+    writer.indent();
+    printClassInterfaceModifier(writer, jFile);
+    writer.append(jFile.getClassOrInterfaceName());
+    printClassGeneric(writer, jFile.getClassGeneric());
+    printClassExtends(writer, jFile);
+    printImplements(writer, jFile.getImplements());
+    writer.append(" {");
+    writer.nl();
   }
 
-  private void printClassInterfaceModifier(final StringBuffer buffer,
-      final JClass jFile) {
-    buffer.append("public ");
+  private void printClassInterfaceModifier(final CodeWriter writer,
+      final JClass jFile) throws IOException {
+    writer.append("public ");
     if (jFile.isInterface()) {
-      buffer.append("interface ");
+      writer.append("interface ");
     } else {
       if (jFile.isStatic()) {
-        buffer.append("static ");
+        writer.append("static ");
       }
       if (jFile.hasAbstractMethods()) {
-        buffer.append("abstract ");
+        writer.append("abstract ");
       }
-      buffer.append("class ");
+      writer.append("class ");
     }
   }
 
-  private void printClassGeneric(final StringBuffer buffer,
-      final String classGeneric) {
+  private void printClassGeneric(final CodeWriter writer,
+      final String classGeneric) throws IOException {
     if (classGeneric != null) {
-      buffer.append('<');
-      buffer.append(classGeneric);
-      buffer.append(" extends ");
-      buffer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT);
-      buffer.append("> ");
+      writer.append('<');
+      writer.append(classGeneric);
+      writer.append(" extends ");
+      writer.append(TypeMapper.GWT_JAVA_SCRIPT_OBJECT);
+      writer.append("> ");
     }
   }
 
-  private void printClassExtends(final StringBuffer buffer,
-      final JClass jFile) {
+  private void printClassExtends(final CodeWriter writer,
+      final JClass jFile) throws IOException {
     if (jFile instanceof JClass && jFile.getExtends() != null
         && !jFile.isInterface()) {
-      buffer.append(" extends ");
-      buffer.append(jFile.getExtends());
+      writer.append(" extends ");
+      writer.append(jFile.getExtends());
     }
   }
 
-  private void printImplements(final StringBuffer buffer,
-      final List<String> implementss) {
+  private void printImplements(final CodeWriter writer,
+      final List<String> implementss) throws IOException {
     if (!implementss.isEmpty()) {
-      buffer.append(" implements");
+      writer.append(" implements");
       boolean first = true;
       for (final String implString : implementss) {
         if (first) {
           first = false;
         } else {
-          buffer.append(',');
+          writer.append(',');
         }
-        buffer.append(' ');
-        buffer.append(implString);
+        writer.append(' ');
+        writer.append(implString);
       }
     }
   }
 
-  private void printConstructors(final int indent, final StringBuffer buffer,
-      final JClass jFile) {
+  private void printConstructors(final CodeWriter writer, final JClass jFile)
+      throws IOException {
     // if class is abstract don't create constructors because the class can't
     // be used directly.
     if (!jFile.hasAbstractMethods()) {
       for (final JMethod constructor : jFile.getConstructors()) {
         if (jFile.isDataClass()) {
-          printConstructorsDataClass(indent, buffer, jFile);
+          printConstructorsDataClass(writer, jFile);
         } else {
-          printConstructorCreator(indent, buffer, jFile, constructor);
+          printConstructorCreator(writer, jFile, constructor);
         }
       }
     }
     if (!jFile.isDataClass() && !jFile.isInterface()) {
-      printConstructor(
-          buffer, indent, "protected", jFile.getClassOrInterfaceName());
+      printConstructor(writer, "protected", jFile.getClassOrInterfaceName());
     }
   }
 
-  private void printConstructorCreator(int indent, final StringBuffer buffer,
-      final JClass jFile, final JMethod constructor) {
-    PrintUtil.indent(buffer, indent);
-    buffer.append("public static native ");
-    printClassGeneric(buffer, jFile.getClassGeneric());
-    buffer.append(jFile.getClassOrInterfaceName());
+  private void printConstructorCreator(final CodeWriter writer,
+      final JClass jFile, final JMethod constructor) throws IOException {
+    writer.indent();
+    writer.append("public static native ");
+    printClassGeneric(writer, jFile.getClassGeneric());
+    writer.append(jFile.getClassOrInterfaceName());
     if (jFile.getClassGeneric() != null) {
-      buffer.append('<');
-      buffer.append(jFile.getClassGeneric());
-      buffer.append('>');
+      writer.append('<');
+      writer.append(jFile.getClassGeneric());
+      writer.append('>');
     }
-    buffer.append(" new");
-    buffer.append(PrintUtil.firstCharUpper(jFile.getClassOrInterfaceName()));
-    buffer.append('(');
-    JSNIMethodPrinter.printMethodParam(buffer, constructor, true);
-    buffer.append(") /*-{");
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, ++indent);
-    buffer.append("return new $wnd.");
+    writer.append(" new");
+    writer.append(PrintUtil.firstCharUpper(jFile.getClassOrInterfaceName()));
+    writer.append('(');
+    JSNIMethodPrinter.printMethodParam(writer, constructor, true);
+    writer.append(") /*-{");
+    writer.nl();
+    writer.indentIn().indent();
+    writer.append("return new $wnd.");
     if (!jFile.getPackageName().isEmpty()) {
-      buffer.append(jFile.getPackageName());
-      buffer.append('.');
+      writer.append(jFile.getPackageName());
+      writer.append('.');
     }
-    buffer.append(jFile.getClassOrInterfaceName());
-    buffer.append('(');
-    JSNIMethodPrinter.printMethodParam(buffer, constructor, false);
-    buffer.append(");");
-    PrintUtil.nl(buffer);
-    PrintUtil.indent(buffer, --indent);
-    buffer.append("}-*/;");
-    PrintUtil.nl2(buffer);
+    writer.append(jFile.getClassOrInterfaceName());
+    writer.append('(');
+    JSNIMethodPrinter.printMethodParam(writer, constructor, false);
+    writer.append(");");
+    writer.nl();
+    writer.indentOut().indent();
+    writer.append("}-*/;");
+    writer.nl2();
   }
 
   /**
    * Generate constructor without arguments.
-   * @param buffer
-   * @param indent
+   * @param writer
    * @param accessType
    * @param name name of the constructor
    */
-  private void printConstructor(final StringBuffer buffer,
-      final int indent, final String accessType, final String name) {
-    PrintUtil.indent(buffer, indent);
-    buffer.append(accessType);
-    buffer.append(' ');
-    buffer.append(name);
-    buffer.append("() { }");
-    PrintUtil.nl2(buffer);
+  private void printConstructor(final CodeWriter writer,
+      final String accessType, final String name) throws IOException {
+    writer.indent();
+    writer.append(accessType);
+    writer.append(' ');
+    writer.append(name);
+    writer.append("() { }");
+    writer.nl2();
   }
 
-  private void printConstructorsDataClass(final int indent,
-      final StringBuffer buffer, final JClass jFile) {
-    PrintUtil.indent(buffer, indent);
-    buffer.append("public ");
-    buffer.append(jFile.getClassOrInterfaceName());
-    buffer.append("(){ }");
-    PrintUtil.nl2(buffer);
+  private void printConstructorsDataClass(final CodeWriter writer,
+      final JClass jFile) throws IOException {
+    writer.indent();
+    writer.append("public ");
+    writer.append(jFile.getClassOrInterfaceName());
+    writer.append("(){ }");
+    writer.nl2();
   }
 }
 
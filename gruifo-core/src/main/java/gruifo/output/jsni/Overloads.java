@@ -0,0 +1,148 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output.jsni;
+
+import gruifo.lang.java.JParam;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The parameter lists of the overloads of a method. For each parameter
+ * position there is a list of alternative parameters, one for each type the
+ * parameter can have. Optional parameters end a parameter list, so a method
+ * has an overload for each optional parameter, and for each such overload all
+ * combinations of alternatives. All overloads share the same alternatives,
+ * and the parameter lists are only created when iterated, one at a time.
+ *
+ * <p>Combinations are iterated with the alternatives of the first parameter
+ * changing fastest:
+ * <pre>
+ *   A => A C
+ *   B    B C
+ *        A D
+ *        B D
+ * </pre>
+ */
+class Overloads implements Iterable<List<JParam>> {
+
+  private final List<List<JParam>> alternatives = new ArrayList<>();
+  private final List<Integer> ends = new ArrayList<>();
+
+  /**
+   * Ends a parameter list: an overload is created with all parameters added
+   * so far.
+   */
+  public void endOverload() {
+    ends.add(alternatives.size());
+  }
+
+  /**
+   * Adds the next parameter position.
+   * @param paramAlternatives alternative parameters for this position
+   */
+  public void addParam(final List<JParam> paramAlternatives) {
+    if (paramAlternatives.isEmpty()) {
+      throw new IllegalArgumentException("No alternatives for parameter");
+    }
+    alternatives.add(paramAlternatives);
+  }
+
+  /**
+   * Returns the alternatives of each parameter position. Alternatives can be
+   * replaced before iterating.
+   * @return alternatives per parameter position
+   */
+  public List<List<JParam>> getAlternatives() {
+    return alternatives;
+  }
+
+  /**
+   * Counts the number of overloads. Counting stops as soon as the count is
+   * more than the given maximum.
+   * @param max maximum to count to
+   * @return number of overloads, or a number larger than max
+   */
+  public long count(final long max) {
+    long count = 0;
+    long combinations = 1;
+    int position = 0;
+    for (final int end : ends) {
+      for (; position < end; position++) {
+        combinations *= alternatives.get(position).size();
+        if (combinations > max) {
+          return combinations;
+        }
+      }
+      count += combinations;
+      if (count > max) {
+        return count;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public Iterator<List<JParam>> iterator() {
+    return new OverloadIterator();
+  }
+
+  /**
+   * Iterates the combinations of alternatives like an odometer, with the
+   * first position as the fastest changing digit.
+   */
+  private class OverloadIterator implements Iterator<List<JParam>> {
+    private final int[] digits = new int[alternatives.size()];
+    private int endIndex;
+
+    @Override
+    public boolean hasNext() {
+      return endIndex < ends.size();
+    }
+
+    @Override
+    public List<JParam> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final int end = ends.get(endIndex);
+      final List<JParam> params = new ArrayList<>(end);
+      for (int i = 0; i < end; i++) {
+        params.add(alternatives.get(i).get(digits[i]));
+      }
+      advance(end);
+      return params;
+    }
+
+    private void advance(final int end) {
+      for (int i = 0; i < end; i++) {
+        if (++digits[i] < alternatives.get(i).size()) {
+          return;
+        }
+        digits[i] = 0;
+      }
+      // All combinations of this overload done, continue with the next.
+      endIndex++;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
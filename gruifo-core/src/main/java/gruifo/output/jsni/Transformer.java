@@ -27,8 +27,11 @@ import gruifo.lang.js.JsType;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -40,14 +43,39 @@ import org.slf4j.LoggerFactory;
 class Transformer {
 
   private static final Logger LOG = LoggerFactory.getLogger(Transformer.class);
-  private static final TypeMapper TYPE_MAPPER = TypeMapper.INSTANCE;
+  private static final String VAR_ARGS = "...";
 
   private final Set<String> ignoreMethods = new HashSet<>();
+  private final TypeMapper typeMapper;
+  private int maxOverloads = JSNIPrinter.DEFAULT_MAX_OVERLOADS;
 
   public Transformer() {
+    this(new TypeMapper());
+  }
+
+  /**
+   * @param typeMapper type mapper to map JavaScript types to Java types
+   */
+  public Transformer(final TypeMapper typeMapper) {
+    this.typeMapper = typeMapper;
     ignoreMethods.add("toString");
   }
 
+  /**
+   * Sets the maximum number of overloads generated for a single method. If
+   * the combinations of optional and union typed parameters would result in
+   * more overloads, union typed parameters are generated as JavaScriptObject.
+   * @param maxOverloads maximum number of overloads per method
+   */
+  public void setMaxOverloads(final int maxOverloads) {
+    if (maxOverloads < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of overloads must be at least 1, got: "
+              + maxOverloads);
+    }
+    this.maxOverloads = maxOverloads;
+  }
+
   public JClass transform(final JsFile jsFile) {
     final JClass jFile =
         new JClass(jsFile.getPackageName(), jsFile.getClassOrInterfaceName());
@@ -69,6 +97,8 @@ class Transformer {
         jsFile.getEnumValues());
     transformFields(jFile, jsFile.getFields());
     transformMethods(jsFile, jFile);
+    removeDuplicates(jFile, jFile.getConstructors());
+    removeDuplicates(jFile, jFile.getMethods());
     return jFile;
   }
 
@@ -102,13 +132,9 @@ class Transformer {
   private void transformMethods(final JsFile jsFile, final JClass jFile) {
     for(final JsMethod jsMethod: jsFile.getMethods()) {
       if (!ignoreMethod(jFile.getFullClassName(), jsMethod)) {
-        final List<List<JsParam>> list =
-            splitMethodParamsOptional(jsMethod.getElement().getParams());
-        final List<List<JParam>> jParamList = new ArrayList<>();
-        for (final List<JsParam> innerList : list) {
-          jParamList.addAll(split2MethodParamsMulti(innerList));
-        }
-        for (final List<JParam> params : jParamList) {
+        final Overloads overloads =
+            createOverloads(jFile, jsMethod, jsMethod.getElement().getParams());
+        for (final List<JParam> params : overloads) {
           final JMethod method = transformMethod(jFile, jsMethod, params);
           if (jsMethod.getElement().isClassDescription()) {
             jFile.setClassDescription(jsMethod.getElement().getJsDoc());
@@ -123,6 +149,79 @@ class Transformer {
     }
   }
 
+  /**
+   * Removes methods with the same name and erased parameter types as a
+   * previous method in the list. Different JavaScript types can be mapped to
+   * the same Java type, which would result in methods Java can't distinguish.
+   * A static method with the same signature as an instance method is removed
+   * in favor of the instance method, as Java can't have both.
+   * @param jFile class of the methods
+   * @param methods methods to remove the duplicates from
+   */
+  private void removeDuplicates(final JClass jFile,
+      final List<JMethod> methods) {
+    final Map<String, Integer> signatures = new HashMap<>(methods.size() * 2);
+    final List<JMethod> unique = new ArrayList<>(methods.size());
+    for (final JMethod method : methods) {
+      final String signature = erasedSignature(jFile, method);
+      final Integer index = signatures.get(signature);
+      if (index == null) {
+        signatures.put(signature, unique.size());
+        unique.add(method);
+      } else {
+        if (unique.get(index).isStaticMethod() && !method.isStaticMethod()) {
+          unique.set(index, null);
+          signatures.put(signature, unique.size());
+          unique.add(method);
+        }
+        LOG.debug("Duplicate method removed: {}.{}", jFile.getFullClassName(),
+            signature);
+      }
+    }
+    unique.removeAll(Collections.singleton(null));
+    if (unique.size() < methods.size()) {
+      methods.clear();
+      methods.addAll(unique);
+    }
+  }
+
+  private String erasedSignature(final JClass jFile, final JMethod method) {
+    final StringBuilder signature = new StringBuilder(method.getMethodName());
+    signature.append('(');
+    boolean first = true;
+    for (final JParam param : method.getParams()) {
+      if (!first) {
+        signature.append(',');
+      }
+      first = false;
+      signature.append(erasure(jFile, method, param.getType()));
+    }
+    return signature.append(')').toString();
+  }
+
+  /**
+   * Returns the erasure of the type: without generic type arguments, type
+   * variables replaced by their bound and varargs as array.
+   */
+  private String erasure(final JClass jFile, final JMethod method,
+      final String type) {
+    if (type == null) {
+      return null;
+    }
+    final int genericIdx = type.indexOf('<');
+    String erased = genericIdx < 0 ? type : type.substring(0, genericIdx)
+        + type.substring(type.lastIndexOf('>') + 1);
+    final boolean varArgs = erased.endsWith(VAR_ARGS);
+    if (varArgs) {
+      erased = erased.substring(0, erased.length() - VAR_ARGS.length());
+    }
+    if (erased.equals(method.getGenericType())
+        || erased.equals(jFile.getClassGeneric())) {
+      erased = TypeMapper.GWT_JAVA_SCRIPT_OBJECT;
+    }
+    return varArgs ? erased + "[]" : erased;
+  }
+
   private void addImports(final JClass JClass) {
   }
 
@@ -130,7 +229,7 @@ class Transformer {
     final JsType extendsType = jsFile.getElement().getExtends();
     if (jsFile.getElement().getGenericType() != null) {
       jFile.setClassGeneric(
-          TYPE_MAPPER.mapType(jsFile.getElement().getGenericType()));
+          typeMapper.mapType(jsFile.getElement().getGenericType()));
     }
     if (jFile.isDataClass()) {
       jFile.setExtends(null);
@@ -151,7 +250,7 @@ class Transformer {
   private void transformFields(final JClass jFile,
       final List<JsParam> jsFields) {
     for (final JsParam jsParam : jsFields) {
-      if (!TYPE_MAPPER.ignore(jFile.getFullClassName(), jsParam.getName())) {
+      if (!typeMapper.ignore(jFile.getFullClassName(), jsParam.getName())) {
         final List<String> types = transformType(jsParam.getType());
         for (final String type: types) {
           final JParam field = filterParam(jFile,
@@ -172,94 +271,52 @@ class Transformer {
         || jsMethod.getElement().isOverride()
         || jsMethod.getElement().isPrivate()
         || jsMethod.getElement().isProtected()
-        || TYPE_MAPPER.ignore(clazz, jsMethod.getMethodName())
+        || typeMapper.ignore(clazz, jsMethod.getMethodName())
         || "clone".equals(jsMethod.getMethodName()); // FIXME clone
   }
 
   /**
-   * Creates multiple parameter lists if a parameter is optional. If a
-   * parameter is optional a parameter list if added without this parameter.
-   * @param jsParams List of parameters
-   * @return List of List of parameters
+   * Creates the overloads for the parameters. If a parameter is optional an
+   * overload is added without this parameter. If a parameter type contains
+   * multiple types an overload is added for each type. If this would result
+   * in more overloads than the maximum, parameters with multiple types are
+   * generated as JavaScriptObject.
+   * @param jFile class of the method
+   * @param jsMethod method
+   * @param jsParams parameters of the method
+   * @return overloads
    */
-  private List<List<JsParam>> splitMethodParamsOptional(final List<JsParam> jsParams) {
-    final List<List<JsParam>> params = new ArrayList<>();
-    List<JsParam> current = new ArrayList<JsParam>();
-    params.add(current);
-    for (int i = 0; i < jsParams.size(); i++) {
-      final JsParam jsParam = jsParams.get(i);
+  private Overloads createOverloads(final JClass jFile,
+      final JsMethod jsMethod, final List<JsParam> jsParams) {
+    final Overloads overloads = new Overloads();
+    for (final JsParam jsParam : jsParams) {
       if (jsParam.getType().isOptional()) {
-        current = new ArrayList<JsParam>(params.get(params.size() - 1));
-        params.add(current);
+        overloads.endOverload();
       }
-      current.add(jsParam);
-    }
-    return params;
-  }
-
-  /**
-   * Creates multiple parameters lists if a parameter type contains multiple
-   * types.
-   * @param jsParams
-   * @return
-   */
-  private List<List<JParam>> split2MethodParamsMulti(
-      final List<JsParam> jsParams) {
-    final List<List<JParam>> params = new ArrayList<>();
-    params.add(new ArrayList<JParam>());
-    for (int i = 0; i < jsParams.size(); i++) {
-      final JsParam jsParam = jsParams.get(i);
       if (jsParam.getType().getChoices().size() > 1) {
-        expandChoices(params, jsParam);
+        overloads.addParam(optionParam2List(jsParam));
       } else {
-        addSingleParam(params, jsParam);
-      }
-    }
-    return params;
-  }
-
-  /**
-   * Add new lists for each choice.
-   * The lists are alternating replicated and then sequential added:
-   * <pre>
-   *   A => A C
-   *   B    B C
-   *        A D
-   *        B D
-   * </pre>
-   * @param params List of combinations of List of parameters.
-   * @param jsParam choice parameters to add.
-   */
-  private void expandChoices(final List<List<JParam>> params,
-      final JsParam jsParam) {
-    final List<JParam> splitParams = optionParam2List(jsParam);
-    final int currentSize = params.size();
-    // Add new lists matching the number of choices.
-    for (int j = 0; j < currentSize; j++) {
-      for (int k = 1; k < splitParams.size(); k++) {
-        params.add(new ArrayList<>(params.get(j)));
-      }
-    }
-    for (int j = 0; j < splitParams.size();j++) {
-      for (int k = 0; k < currentSize; k++) {
-        params.get(k + (j * currentSize)).add(splitParams.get(j));
+        for (final String type: transformType(jsParam.getType())) {
+          overloads.addParam(
+              Collections.singletonList(new JParam(jsParam.getName(), type)));
+        }
       }
     }
-  }
-
-  /**
-   * Add the given jsParam to each list in params.
-   * @param params List of combinations of List of parameters.
-   * @param jsParam parameter to add.
-   */
-  private void addSingleParam(final List<List<JParam>> params,
-      final JsParam jsParam) {
-    for (final String type: transformType(jsParam.getType())) {
-      final JParam jParam = new JParam(jsParam.getName(), type);
-      for (final List<JParam> list : params) {
-        list.add(jParam);
+    overloads.endOverload();
+    if (overloads.count(maxOverloads) > maxOverloads) {
+      LOG.warn("Method {}.{} has more than {} overloads, union typed "
+          + "parameters are generated as JavaScriptObject.",
+          jFile.getFullClassName(), jsMethod.getMethodName(), maxOverloads);
+      final List<List<JParam>> alternatives = overloads.getAlternatives();
+      for (int i = 0; i < alternatives.size(); i++) {
+        if (alternatives.get(i).size() > 1) {
+          alternatives.set(i, Collections.singletonList(new JParam(
+              alternatives.get(i).get(0).getName(),
+              TypeMapper.GWT_JAVA_SCRIPT_OBJECT)));
+        }
       }
     }
+    return overloads;
   }
 
   public List<JParam> optionParam2List(final JsParam jsParam) {
@@ -308,7 +365,7 @@ class Transformer {
    * @return
    */
   private JParam filterParam(final JClass jFile, final JParam param) {
-    final String replaceType = TYPE_MAPPER.replaceType(jFile.getFullClassName(),
+    final String replaceType = typeMapper.replaceType(jFile.getFullClassName(),
         param.getName());
     if (replaceType != null) {
       param.setType(replaceType);
@@ -325,7 +382,7 @@ class Transformer {
    */
   private JParam filterParam(final JClass jFile, final JMethod jMethod,
       final JParam param) {
-    final String replaceType = TYPE_MAPPER.replaceType(jFile.getFullClassName(),
+    final String replaceType = typeMapper.replaceType(jFile.getFullClassName(),
         jMethod.getMethodName(), param.getName());
     if (replaceType != null) {
       param.setType(replaceType);
@@ -362,7 +419,7 @@ class Transformer {
   }
 
   private String tranformVarargs(final JsType jsType, final String type) {
-    return type + (jsType.isVarArgs() ? "..." : "");
+    return type + (jsType.isVarArgs() ? VAR_ARGS : "");
   }
 
   private String transformSingleType(final JsType jsType) {
@@ -394,8 +451,8 @@ class Transformer {
    * @return mapped raw type or null
    */
   private String mapRawType(final String rawType) {
-    return rawType == null ? null : TYPE_MAPPER.mapType(rawType).equals(rawType)
-        ? null : TYPE_MAPPER.mapType(rawType);
+    return rawType == null ? null : typeMapper.mapType(rawType).equals(rawType)
+        ? null : typeMapper.mapType(rawType);
   }
 
   private String transformType(final JsType jsType, final boolean generic) {
@@ -408,7 +465,7 @@ class Transformer {
       } else {
         type = mapRawType(jsType.getRawType());
         if (type == null) {
-          final String mappedType = TYPE_MAPPER.mapType(jsType.getName(), generic);
+          final String mappedType = typeMapper.mapType(jsType.getName(), generic);
           if (TypeMapper.GWT_JAVA_SCRIPT_OBJECT.equals(mappedType)) {
             type = TypeMapper.GWT_JAVA_SCRIPT_OBJECT;
           } else {
@@ -421,7 +478,7 @@ class Transformer {
         }
       }
     } else {
-      type = TYPE_MAPPER.mapType(jsType.getName(), generic);
+      type = typeMapper.mapType(jsType.getName(), generic);
     }
     return type;
   }
@@ -464,6 +521,6 @@ class Transformer {
   //        specific = "Array.<number>";
   //      }
   //    }
-  //    return specific == null ? null : TYPE_MAPPER.mapType(specific);
+  //    return specific == null ? null : typeMapper.mapType(specific);
   //  }
 }
@@ -15,6 +15,7 @@
  */
 package gruifo.output.jsni;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -22,36 +23,64 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 
+/**
+ * Maps JavaScript types to Java types. A type mapper is immutable: the
+ * default mappings and the mappings from the type mapping file are combined
+ * when it's created. Therefore an instance can be shared between threads and
+ * different generation runs don't influence each other.
+ */
 public final class TypeMapper {
   private static final String GWT_JSNI_PACKAGE = "com.google.gwt.core.client.";
   static final String GWT_JAVA_SCRIPT_OBJECT =
       GWT_JSNI_PACKAGE + "JavaScriptObject";
 
-  public static final TypeMapper INSTANCE = new TypeMapper();
-
-  private final Map<String, String> mapper = new HashMap<>();
-  private final Map<String, String> primitiveMapper = new HashMap<>();
-  private final Map<String, String> genericMapper = new HashMap<>();
-  private final Set<String> ignores = new HashSet<>();
-  private final Map<String, String> replaceTypes = new HashMap<>();
-
-  private TypeMapper() {
-    primitiveMapper.put("void", "void");
-    primitiveMapper.put("string", "String");
-    primitiveMapper.put("int", "int");
-    primitiveMapper.put("double", "double");
-    primitiveMapper.put("float", "float");
-    primitiveMapper.put("boolean", "boolean");
-    primitiveMapper.put("number", "double");
-
-    genericMapper.put("void", "Void");
-    genericMapper.put("string", "String");
-    genericMapper.put("int", "Integer");
-    genericMapper.put("double", "Double");
-    genericMapper.put("float", "Float");
-    genericMapper.put("boolean", "Boolean");
-    genericMapper.put("number", "Double");
+  private final Map<String, String> primitiveMapper;
+  private final Set<String> ignores;
+  private final Map<String, String> replaceTypes;
+  /**
+   * Result of mapping a type to a primitive type and then to any other type,
+   * for all types that map to a different type.
+   */
+  private final Map<String, String> typeMapper;
+  /**
+   * Result of mapping a type to a generic type and then to any other type,
+   * for all types that map to a different type.
+   */
+  private final Map<String, String> genericTypeMapper;
 
+  /**
+   * Creates a type mapper with only the default mappings.
+   */
+  public TypeMapper() {
+    this(new Properties());
+  }
+
+  /**
+   * Creates a type mapper with the default mappings and the given mappings.
+   * Keys starting with '-' are classes, fields or methods to ignore, keys
+   * starting with '&' are types to replace.
+   * @param props type mappings
+   */
+  public TypeMapper(final Properties props) {
+    final Map<String, String> primitives = new HashMap<>();
+    primitives.put("void", "void");
+    primitives.put("string", "String");
+    primitives.put("int", "int");
+    primitives.put("double", "double");
+    primitives.put("float", "float");
+    primitives.put("boolean", "boolean");
+    primitives.put("number", "double");
+
+    final Map<String, String> generics = new HashMap<>();
+    generics.put("void", "Void");
+    generics.put("string", "String");
+    generics.put("int", "Integer");
+    generics.put("double", "Double");
+    generics.put("float", "Float");
+    generics.put("boolean", "Boolean");
+    generics.put("number", "Double");
+
+    final Map<String, String> mapper = new HashMap<>();
     mapper.put("*", GWT_JAVA_SCRIPT_OBJECT);
     mapper.put("object", GWT_JAVA_SCRIPT_OBJECT);
     mapper.put("Object", GWT_JAVA_SCRIPT_OBJECT);
@@ -68,19 +97,40 @@ public final class TypeMapper {
     mapper.put("Array.<*>", "com.google.gwt.core.client.JsArray");
     mapper.put("Array.<number>", "com.google.gwt.core.client.JsArrayNumber");
     mapper.put("Array.<string>", "com.google.gwt.core.client.JsArrayString");
-  }
 
-  public void addMappings(final Properties props) {
+    final Set<String> ignoreSet = new HashSet<>();
+    final Map<String, String> replaceMap = new HashMap<>();
     for (final Entry<Object, Object> prop : props.entrySet()) {
       if (((String) prop.getKey()).charAt(0) == '-') {
-        ignores.add(((String) prop.getKey()).substring(1));
+        ignoreSet.add(((String) prop.getKey()).substring(1));
       } else if (((String) prop.getKey()).charAt(0) == '&') {
-        replaceTypes.put(((String) prop.getKey()).substring(1),
+        replaceMap.put(((String) prop.getKey()).substring(1),
             (String) prop.getValue());
       } else {
         mapper.put((String) prop.getKey(), (String) prop.getValue());
       }
     }
+    primitiveMapper = Collections.unmodifiableMap(primitives);
+    ignores = Collections.unmodifiableSet(ignoreSet);
+    replaceTypes = Collections.unmodifiableMap(replaceMap);
+    typeMapper = combine(primitives, mapper);
+    genericTypeMapper = combine(generics, mapper);
+  }
+
+  /**
+   * Combines the first and second mapping into a single mapping, equal to
+   * first mapping a type with the first map and then the result with the
+   * second map.
+   */
+  private static Map<String, String> combine(final Map<String, String> first,
+      final Map<String, String> second) {
+    final Map<String, String> combined = new HashMap<>(second);
+    for (final Entry<String, String> entry : first.entrySet()) {
+      final String mapped = second.get(entry.getValue());
+      combined.put(entry.getKey(),
+          mapped == null ? entry.getValue() : mapped);
+    }
+    return Collections.unmodifiableMap(combined);
   }
 
   public boolean ignore(final String clazz) {
@@ -101,8 +151,7 @@ public final class TypeMapper {
   }
 
   public String mapType(final String typeToMap, final boolean generic) {
-    return mapOtherType(generic
-        ? mapGenericType(typeToMap) : mapPrimitiveType(typeToMap));
+    return map(generic ? genericTypeMapper : typeMapper, typeToMap);
   }
 
   /**
@@ -112,22 +161,13 @@ public final class TypeMapper {
    * @return
    */
   public String mapType(final String typeToMap) {
-    return mapOtherType(mapPrimitiveType(typeToMap));
-  }
-
-  private String mapOtherType(final String typeToMap) {
-    return mapper.containsKey(typeToMap)
-        ? mapper.get(typeToMap) : typeToMap;
-  }
-
-  private String mapGenericType(final String typeToMap) {
-    return genericMapper.containsKey(typeToMap) ?
-        genericMapper.get(typeToMap) : typeToMap;
+    return map(typeMapper, typeToMap);
   }
 
-  private String mapPrimitiveType(final String typeToMap) {
-    return primitiveMapper.containsKey(typeToMap)
-        ? primitiveMapper.get(typeToMap) : typeToMap;
+  private static String map(final Map<String, String> mapper,
+      final String typeToMap) {
+    final String mapped = mapper.get(typeToMap);
+    return mapped == null ? typeToMap : mapped;
   }
 
   public String replaceType(final String fullClassName, final String methodName,
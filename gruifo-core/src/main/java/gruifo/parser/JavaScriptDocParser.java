@@ -19,9 +19,6 @@ import gruifo.lang.js.JsElement;
 import gruifo.lang.js.JsParam;
 import gruifo.lang.js.JsType;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -153,14 +150,26 @@ public class JavaScriptDocParser {
    */
   private static final String TYPEDEF = "typedef";
 
-  private static final Pattern ANNOTATION_PATTERN =
-      Pattern.compile("@([^ ]+) ?.*");
-  private static final Pattern COMMENT_PATTERN =
-      Pattern.compile("^ *\\* *([^@]+)");
+  private static final String[] ANNOTATIONS = {API, CLASSDESC, CONST,
+    CONSTRUCTOR, DEFINE, DEPRECATED, EXTENDS, ENUM, FIRES, FUNCTION, IMPLEMENTS,
+    INHERITDOC, INTERFACE, LINK, NOSIDEEFFECTS, PARAM, PRIVATE, PROTECTED,
+    OBSERVABLE, OVERRIDE, RETURN, SEE, STRUCT, SUPPRESS, TEMPLATE, THIS, TODO,
+    TYPE, TYPEDEF};
+
+  private final JsTypeParser jsTypeParser;
+  private final JsDocTypedefParser typedefParser;
+
+  public JavaScriptDocParser() {
+    this(null);
+  }
 
-  private final JsTypeParser jsTypeParser = new JsTypeParser();
-  private final JsDocTypedefParser typedefParser =
-      new JsDocTypedefParser(jsTypeParser);
+  /**
+   * @param typeCache cache of parsed types or null for no cache
+   */
+  public JavaScriptDocParser(final JsTypeCache typeCache) {
+    jsTypeParser = new JsTypeParser(typeCache);
+    typedefParser = new JsDocTypedefParser(jsTypeParser);
+  }
 
   public JsElement parse(final String fileName, final String comment) {
     final JsElement doc = new JsElement();
@@ -169,10 +178,24 @@ public class JavaScriptDocParser {
       LOG.error("Comment in file {} is empty.", fileName);
       return null;
     }
-    final String lines[] = comment.split("\\r?\\n");
-    for (int i = 0; i < lines.length; i++) {
-      final String line = lines[i];
-      final String annotation = findAnnotation(line);
+    final int[] lines = JsDocScanner.lines(comment);
+    for (int i = 0; i < lines.length / 2; i++) {
+      final int start = lines[i * 2];
+      final int end = lines[i * 2 + 1];
+      final int annotationStart =
+          JsDocScanner.findAnnotation(comment, start, end);
+      if (annotationStart < 0) {
+        continue;
+      }
+      final int annotationEnd =
+          JsDocScanner.wordEnd(comment, annotationStart, end);
+      final String annotation =
+          findAnnotation(comment, annotationStart, annotationEnd);
+      if (annotation == null) {
+        LOG.error("Annotation '{}' unknown, found in file:{}",
+            comment.substring(annotationStart, annotationEnd), fileName);
+        continue;
+      }
       switch(annotation) {
       case CLASSDESC:
         doc.setClassDesc();
@@ -184,19 +207,19 @@ public class JavaScriptDocParser {
         doc.setConstructor();
         break;
       case DEFINE:
-        doc.setDefine(parseType(line, fileName));
+        doc.setDefine(parseType(comment, start, end));
         break;
       case ENUM:
-        doc.setEnum(parseType(line, fileName));
+        doc.setEnum(parseType(comment, start, end));
         break;
       case EXTENDS:
-        doc.setExtends(parseType(line, fileName));
+        doc.setExtends(parseType(comment, start, end));
         break;
       case FUNCTION:
         doc.setMethod();
         break;
       case IMPLEMENTS:
-        doc.addImplements(parseType(line, fileName));
+        doc.addImplements(parseType(comment, start, end));
         break;
       case INHERITDOC:
         //if @inheritDoc from an interface it should generate the method.
@@ -207,7 +230,7 @@ public class JavaScriptDocParser {
         doc.setInterface();
         break;
       case PARAM:
-        parseParam(fileName, doc, lines, i, line);
+        parseParam(fileName, doc, comment, lines, i);
         break;
       case PRIVATE:
         doc.setPrivate();
@@ -216,36 +239,22 @@ public class JavaScriptDocParser {
         doc.setProtected();
         break;
       case RETURN:
-        doc.setReturn(parseType(line, fileName));
+        doc.setReturn(parseType(comment, start, end));
         break;
       case TYPE:
-        doc.setType(parseType(line, fileName));
+        doc.setType(parseType(comment, start, end));
         break;
       case TEMPLATE:
-        doc.setGenericType(parseTemplateType(line, fileName));
+        doc.setGenericType(JsDocScanner.findTemplate(comment, start, end));
         // TODO add support for @template
         //LOG.error("Annotation template not supported, found in file:{}", annotation, fileName);
         break;
       case TYPEDEF:
-        i = typedefParser.parseTypeDef(doc, lines, i, fileName);
-        break;
-      case API:
-      case DEPRECATED:
-      case FIRES:
-      case LINK:
-      case NOSIDEEFFECTS:
-      case OBSERVABLE:
-      case SEE:
-      case STRUCT:
-      case SUPPRESS:
-      case THIS:
-      case TODO:
-        // ignore annotation, contains no information for the generation.
+        i = typedefParser.parseTypeDef(doc, toLines(comment, lines), i,
+            fileName);
         break;
       default:
-        if (!annotation.isEmpty()) {
-          LOG.error("Annotation '{}' unknown, found in file:{}", annotation, fileName);
-        }
+        // ignore annotation, contains no information for the generation.
         break;
       }
     }
@@ -256,34 +265,58 @@ public class JavaScriptDocParser {
     return comment;
   }
 
-  private String findAnnotation(final String line) {
-    final Matcher matcher = ANNOTATION_PATTERN.matcher(line);
-    return matcher.find() ? matcher.group(1) : "";
+  /**
+   * Returns the known annotation with the name in the given range, or null if
+   * it's not a known annotation.
+   */
+  private static String findAnnotation(final String comment, final int start,
+      final int end) {
+    final int length = end - start;
+    for (final String annotation : ANNOTATIONS) {
+      if (annotation.length() == length
+          && comment.regionMatches(start, annotation, 0, length)) {
+        return annotation;
+      }
+    }
+    return null;
+  }
+
+  private static String[] toLines(final String comment, final int[] lines) {
+    final String[] strings = new String[lines.length / 2];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = comment.substring(lines[i * 2], lines[i * 2 + 1]);
+    }
+    return strings;
   }
 
   private void parseParam(final String fileName, final JsElement doc,
-      final String[] lines, final int i, final String line) {
-    JsParam param = parseParam(line, fileName);
+      final String comment, final int[] lines, final int i) {
+    final int start = lines[i * 2];
+    final int end = lines[i * 2 + 1];
+    JsParam param = parseParam(comment, start, end);
     if (param == null) {
-      param = tryDoubleLineParam(line, lines, i, fileName);
+      param = tryDoubleLineParam(comment, lines, i);
     }
     if (param == null) {
-      LOG.error("Parameter could not be parsed, line:{}, file:{}", line, fileName);
+      LOG.error("Parameter could not be parsed, line:{}, file:{}",
+          comment.substring(start, end), fileName);
     } else {
       doc.getParams().add(param);
     }
   }
 
-  private JsParam tryDoubleLineParam(final String line, final String[] lines,
-      final int i, final String fileName) {
+  private JsParam tryDoubleLineParam(final String comment, final int[] lines,
+      final int i) {
     JsParam jsParam;
-    if (lines.length > i + 1) {
-      final Matcher matcher = COMMENT_PATTERN.matcher(lines[i + 1]);
-      final String nextLine = matcher.find() ? matcher.group(1) : "";
+    if (lines.length / 2 > i + 1) {
+      final String nextLine = JsDocScanner.commentText(comment,
+          lines[i * 2 + 2], lines[i * 2 + 3]);
       if (nextLine.isEmpty()) {
         jsParam = null;
       } else {
-        jsParam = parseParam(line + ' ' + nextLine, fileName);
+        final String line =
+            comment.substring(lines[i * 2], lines[i * 2 + 1]) + ' ' + nextLine;
+        jsParam = parseParam(line, 0, line.length());
       }
     } else {
       jsParam = null;
@@ -291,28 +324,24 @@ public class JavaScriptDocParser {
     return jsParam;
   }
 
-  private JsParam parseParam(final String line, final String fileName) {
-    final Pattern pattern = Pattern.compile("\\{([^\\}]+)\\} +([^ ]+)");
-    final Matcher matcher = pattern.matcher(line);
-    final JsParam param = new JsParam();
-    if (matcher.find()) {
-      param.setType(jsTypeParser.parseType(matcher.group(1).trim()));
-      param.setName(matcher.group(2).trim());
-      return param;
-    } else {
+  private JsParam parseParam(final String s, final int start, final int end) {
+    final int typeStart = JsDocScanner.findParam(s, start, end);
+    if (typeStart < 0) {
       return null;
     }
+    final int typeEnd = JsDocScanner.typeEnd(s, typeStart, end);
+    final int nameStart = JsDocScanner.skipSpaces(s, typeEnd + 1, end);
+    final JsParam param = new JsParam();
+    param.setType(
+        jsTypeParser.parseType(JsDocScanner.trim(s, typeStart, typeEnd)));
+    param.setName(JsDocScanner.trim(s, nameStart,
+        JsDocScanner.wordEnd(s, nameStart, end)));
+    return param;
   }
 
-  private String parseTemplateType(final String line, final String fileName) {
-    final Pattern pattern = Pattern.compile("@template +([^ ]+)");
-    final Matcher matcher = pattern.matcher(line);
-    return matcher.find() ? matcher.group(1).trim() : "";
-  }
-
-  private JsType parseType(final String line, final String fileName) {
-    final Pattern pattern = Pattern.compile("\\{([^\\}]+)\\}");
-    final Matcher matcher = pattern.matcher(line);
-    return matcher.find() ? jsTypeParser.parseType(matcher.group(1).trim()) : null;
+  private JsType parseType(final String s, final int start, final int end) {
+    final int typeStart = JsDocScanner.findType(s, start, end);
+    return typeStart < 0 ? null : jsTypeParser.parseType(JsDocScanner.trim(s,
+        typeStart, JsDocScanner.typeEnd(s, typeStart, end)));
   }
 }
@@ -44,6 +44,12 @@ import org.mozilla.javascript.ast.PropertyGet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Visitor collecting the classes, methods and fields from a JavaScript AST.
+ * Only statements directly in the root of the file are of interest. Therefore
+ * by default traversal stops at the expressions of these statements, so
+ * function bodies and other nested nodes are not visited.
+ */
 public class JavaScriptFileParser implements NodeVisitor {
   private static final Logger LOG = LoggerFactory
       .getLogger(JavaScriptFileParser.class);
@@ -52,20 +58,45 @@ public class JavaScriptFileParser implements NodeVisitor {
   private static final Pattern PROTOTYPE_PATTERN =
       Pattern.compile("((.+\\.)?([^\\.]+))\\." + PROTOTYPE + "\\.(.+)");
   private static final Pattern STATIC_PATTERN =
-      Pattern.compile("(([^\\.]+))\\.(.+)");
+      Pattern.compile("(.+)\\.([^\\.]+)");
   private final Map<String, JsFile> files = new HashMap<>();
   private final Map<String, JsElement> consts = new HashMap<>();
   private final List<JsMethod> staticMethods = new ArrayList<>();
-  private final JavaScriptDocParser parser = new JavaScriptDocParser();
+  private final JavaScriptDocParser parser;
 
   private final String fileName;
+  private final boolean rootOnly;
+  private int visitedNodes;
 
   public JavaScriptFileParser(final String fileName) {
+    this(fileName, true);
+  }
+
+  /**
+   * @param fileName name of the file parsed
+   * @param rootOnly if true only visit the root statements and their
+   *          expressions, if false visit all nodes
+   */
+  public JavaScriptFileParser(final String fileName, final boolean rootOnly) {
+    this(fileName, rootOnly, null);
+  }
+
+  /**
+   * @param fileName name of the file parsed
+   * @param rootOnly if true only visit the root statements and their
+   *          expressions, if false visit all nodes
+   * @param typeCache cache of parsed types or null for no cache
+   */
+  public JavaScriptFileParser(final String fileName, final boolean rootOnly,
+      final JsTypeCache typeCache) {
     this.fileName = fileName;
+    this.rootOnly = rootOnly;
+    parser = new JavaScriptDocParser(typeCache);
   }
 
   @Override
   public boolean visit(final AstNode node) {
+    visitedNodes++;
     if (isRootNode(node)) {
       if (node.getType() == Token.ASSIGN) {
         visitAssignment((Assignment) node);
@@ -74,10 +105,19 @@ public class JavaScriptFileParser implements NodeVisitor {
       } else {
         visitOtherNode(node);
       }
+      return !rootOnly;
     }
     return true;
   }
 
+  /**
+   * Returns the number of AST nodes visited.
+   * @return number of visited nodes
+   */
+  public int getVisitedNodes() {
+    return visitedNodes;
+  }
+
 
   private void visitAssignment(final Assignment node) {
     if (node.getLeft() instanceof PropertyGet) {
@@ -145,11 +185,9 @@ public class JavaScriptFileParser implements NodeVisitor {
       }
     } else if (isMethod(name, element)) {
       //method assigned as method variable.
-      final JsMethod method = addMethod(name, element, false);
+      final JsMethod method = addMethod(name, element, false, true);
       if (method == null) {
         LOG.warn("Should this be abstract: {} in file:{}", name, fileName);
-      } else {
-        method.setAbstract(true);
       }
     } else if (element.isConst() || element.isDefine()){
       consts.put(name, element);
@@ -187,7 +225,7 @@ public class JavaScriptFileParser implements NodeVisitor {
   private void addMethodOrField(final String methodOrClassName,
       final JsElement element, final boolean constructor) {
     if (element.getType() == null) {
-      addMethod(methodOrClassName, element, constructor);
+      addMethod(methodOrClassName, element, constructor, false);
     } else {
       addAsField(methodOrClassName, element);
     }
@@ -200,20 +238,25 @@ public class JavaScriptFileParser implements NodeVisitor {
    * method.
    *
    * if no file object could be found then it's a static method, do it's added
-   * to the global list of static methods.
+   * to the global list of static methods. A static assigned something else
+   * than a function is a static property and not an abstract method, so it's
+   * also added to the static methods, which won't add it to a class.
    * @param methodOrClassName
    * @param element
    * @param constructor
+   * @param abstractMethod
    * @return
    */
   private JsMethod addMethod(final String methodOrClassName,
-      final JsElement element, final boolean constructor) {
+      final JsElement element, final boolean constructor,
+      final boolean abstractMethod) {
     final JsMethod method =
         parseMethod(methodOrClassName, element, constructor);
     if (method != null && !element.isInterface()) {
       method.setElement(element);
+      method.setAbstract(abstractMethod);
       final JsFile jsFile = files.get(method.getPackageName());
-      if (jsFile == null) {
+      if (jsFile == null || isStaticProperty(method)) {
         staticMethods.add(method);
       } else {
         jsFile.addMethod(method);
@@ -222,6 +265,16 @@ public class JavaScriptFileParser implements NodeVisitor {
     return method;
   }
 
+  /**
+   * Returns true if the method is a static assigned something else than a
+   * function.
+   * @param method method
+   * @return true if static property
+   */
+  static boolean isStaticProperty(final JsMethod method) {
+    return method.isStaticMethod() && method.isAbstractMethod();
+  }
+
   private void addAsField(final String name, final JsElement element) {
     final Matcher nameMatcher = PROTOTYPE_PATTERN.matcher(name);
     if (nameMatcher.find()) {
@@ -361,7 +414,13 @@ public class JavaScriptFileParser implements NodeVisitor {
     return added;
   }
 
-  private String getFullConstName(final String fullClassName) {
+  /**
+   * Returns the name of the class constants of the given namespace are put
+   * in: the last part of the namespace with Constants appended.
+   * @param fullClassName namespace of the constant
+   * @return name of the constants class, or empty if no namespace
+   */
+  static String getFullConstName(final String fullClassName) {
     final int classSep = fullClassName.lastIndexOf('.');
     final String fullConstName;
     if (classSep > 0) {
@@ -0,0 +1,281 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+/**
+ * Character scanner for JSDoc comments. Finds lines, annotations, types and
+ * parameter names directly on the comment, without regular expressions and
+ * without creating strings for parts that are not returned. Positions are
+ * indexes in the comment, a line is given by its start (inclusive) and end
+ * (exclusive) index.
+ */
+final class JsDocScanner {
+
+  private static final String TEMPLATE = "@template";
+  private static final int[] NO_LINES = new int[0];
+
+  private JsDocScanner() {
+    // util
+  }
+
+  /**
+   * Splits the comment in lines, on \n or \r\n. Like
+   * {@link String#split(String)} trailing empty lines are not included, but
+   * an empty comment is a single empty line. The returned array contains the
+   * start and end index of each line: line i starts at [2 * i] and ends at
+   * [2 * i + 1].
+   *
+   * @param comment comment to split
+   * @return start and end index of each line
+   */
+  public static int[] lines(final String comment) {
+    if (comment.isEmpty()) {
+      return new int[] {0, 0};
+    }
+    int count = 1;
+    for (int i = comment.indexOf('\n'); i >= 0;
+        i = comment.indexOf('\n', i + 1)) {
+      count++;
+    }
+    final int[] lines = new int[count * 2];
+    int line = 0;
+    int start = 0;
+    for (int i = 0; i < comment.length(); i++) {
+      if (comment.charAt(i) == '\n') {
+        lines[line++] = start;
+        lines[line++] = i > start && comment.charAt(i - 1) == '\r' ? i - 1 : i;
+        start = i + 1;
+      }
+    }
+    lines[line++] = start;
+    lines[line++] = comment.length();
+    // remove trailing empty lines
+    while (line > 0 && lines[line - 2] == lines[line - 1]) {
+      line -= 2;
+    }
+    if (line == lines.length) {
+      return lines;
+    }
+    if (line == 0) {
+      return NO_LINES;
+    }
+    final int[] trimmed = new int[line];
+    System.arraycopy(lines, 0, trimmed, 0, line);
+    return trimmed;
+  }
+
+  /**
+   * Returns the index of the name of the first annotation in the line, or -1
+   * if there is no annotation. An annotation is an @ directly followed by its
+   * name, which runs up to the next space.
+   */
+  public static int findAnnotation(final String s, final int start,
+      final int end) {
+    for (int i = s.indexOf('@', start); i >= 0 && i < end - 1;
+        i = s.indexOf('@', i + 1)) {
+      if (s.charAt(i + 1) != ' ') {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the end index of the word starting at the given index: the index
+   * of the next space or the end of the line.
+   */
+  public static int wordEnd(final String s, final int start, final int end) {
+    int i = start;
+    while (i < end && s.charAt(i) != ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the index of the first type in braces, {type}, in the line,
+   * or -1 if there is no type. The type ends at {@link #typeEnd}.
+   */
+  public static int findType(final String s, final int start, final int end) {
+    for (int open = s.indexOf('{', start); open >= 0 && open < end;
+        open = s.indexOf('{', open + 1)) {
+      final int close = typeEnd(s, open + 1, end);
+      if (close < 0) {
+        return -1;
+      } else if (close > open + 1) {
+        return open + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the closing brace of the type starting at the given
+   * index, or -1 if there is none.
+   */
+  public static int typeEnd(final String s, final int start, final int end) {
+    final int close = s.indexOf('}', start);
+    return close < end ? close : -1;
+  }
+
+  /**
+   * Returns the index of the type of a parameter, {type} name, in the line, or
+   * -1 if there is no parameter. The type ends at {@link #typeEnd}. The name
+   * starts after the spaces following the closing brace and ends at
+   * {@link #wordEnd}.
+   */
+  public static int findParam(final String s, final int start, final int end) {
+    for (int open = s.indexOf('{', start); open >= 0 && open < end;
+        open = s.indexOf('{', open + 1)) {
+      final int close = typeEnd(s, open + 1, end);
+      if (close < 0) {
+        return -1;
+      }
+      if (close > open + 1 && close + 1 < end && s.charAt(close + 1) == ' ') {
+        final int name = skipSpaces(s, close + 1, end);
+        if (name < end) {
+          return open + 1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first non space character from the given index,
+   * or end if there is none.
+   */
+  public static int skipSpaces(final String s, final int start, final int end) {
+    int i = start;
+    while (i < end && s.charAt(i) == ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the text of a comment line: the text after the leading * up to
+   * the first @, or an empty string if the line doesn't start with a *.
+   */
+  public static String commentText(final String s, final int start,
+      final int end) {
+    int i = skipSpaces(s, start, end);
+    if (i == end || s.charAt(i) != '*') {
+      return "";
+    }
+    final int afterStar = ++i;
+    i = skipSpaces(s, i, end);
+    if (i == end || s.charAt(i) == '@') {
+      if (i == afterStar) {
+        return "";
+      }
+      // no text after the spaces, the last space is the text.
+      i--;
+    }
+    final int at = s.indexOf('@', i);
+    return s.substring(i, at < 0 || at > end ? end : at);
+  }
+
+  /**
+   * Returns the template type name of an @template annotation in the line, or
+   * an empty string if there is none.
+   */
+  public static String findTemplate(final String s, final int start,
+      final int end) {
+    for (int i = s.indexOf(TEMPLATE, start); i >= 0
+        && i + TEMPLATE.length() <= end; i = s.indexOf(TEMPLATE, i + 1)) {
+      final int spaces = i + TEMPLATE.length();
+      if (spaces < end && s.charAt(spaces) == ' ') {
+        final int name = skipSpaces(s, spaces, end);
+        if (name < end) {
+          return trim(s, name, wordEnd(s, name, end));
+        }
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Returns the text between the first open and the last close token after
+   * it, within the same line. Returns an empty string if not found.
+   */
+  public static String between(final String s, final String open,
+      final String close) {
+    for (int i = s.indexOf(open); i >= 0; i = s.indexOf(open, i + 1)) {
+      final int from = i + open.length();
+      final int closeIdx =
+          s.lastIndexOf(close, lineEnd(s, from) - close.length());
+      if (closeIdx >= from) {
+        return s.substring(from, closeIdx);
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Returns the index of the first line terminator from the given index, or
+   * the length of the string if there is none.
+   */
+  private static int lineEnd(final String s, final int start) {
+    for (int i = start; i < s.length(); i++) {
+      switch (s.charAt(i)) {
+      case '\n':
+      case '\r':
+      case '\u0085':
+      case '\u2028':
+      case '\u2029':
+        return i;
+      default:
+        break;
+      }
+    }
+    return s.length();
+  }
+
+  /**
+   * Returns the line without the leading comment token ' *' and with all
+   * spaces removed.
+   */
+  public static String stripComment(final String line) {
+    final int star = skipSpaces(line, 0, line.length());
+    final int start =
+        star > 0 && star < line.length() && line.charAt(star) == '*'
+        ? star + 1 : 0;
+    final StringBuilder sb = new StringBuilder(line.length() - start);
+    for (int i = start; i < line.length(); i++) {
+      if (line.charAt(i) != ' ') {
+        sb.append(line.charAt(i));
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the substring with leading and trailing whitespace removed, like
+   * {@link String#trim()}.
+   */
+  public static String trim(final String s, final int start, final int end) {
+    int b = start;
+    int e = end;
+    while (b < e && s.charAt(b) <= ' ') {
+      b++;
+    }
+    while (e > b && s.charAt(e - 1) <= ' ') {
+      e--;
+    }
+    return s.substring(b, e);
+  }
+}
@@ -20,8 +20,6 @@ import gruifo.lang.js.JsParam;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,11 +31,6 @@ class JsDocTypedefParser {
   private static final Logger LOG = LoggerFactory
       .getLogger(JsDocTypedefParser.class);
 
-  private static final Pattern TYPE_DEF_PATTERN = Pattern
-      .compile("\\{\\{(.*)\\}\\}");
-  private static final Pattern TYPE_DEF__RETURN_PATTERN = Pattern
-      .compile("\\{(.*)\\}");
-
   private final JsTypeParser jsTypeParser;
 
   public JsDocTypedefParser(final JsTypeParser jsTypeParser) {
@@ -51,7 +44,7 @@ class JsDocTypedefParser {
     } else {
       doc.setTypeDef(null);
       doc.setExtends(jsTypeParser.parseType(
-          findValues(lines[i], TYPE_DEF__RETURN_PATTERN)));
+          JsDocScanner.between(lines[i], "{", "}")));
     }
     return i;
   }
@@ -63,7 +56,7 @@ class JsDocTypedefParser {
     for (; !lines[i].contains("}}"); i++) {
       sb.append(stripAndReplace(lines[i + 1]));
     }
-    final String values = findValues(sb.toString(), TYPE_DEF_PATTERN);
+    final String values = JsDocScanner.between(sb.toString(), "{{", "}}");
     if (values.isEmpty()) {
       LOG.error("Missing typedef pattern, {} in file {}", sb.toString().trim(),
           fileName);
@@ -74,11 +67,6 @@ class JsDocTypedefParser {
     return i;
   }
 
-  private String findValues(final String string, final Pattern pattern) {
-    final Matcher tdp = pattern.matcher(string);
-    return tdp.find() ? tdp.group(1) : "";
-  }
-
   private void parseValues(final String values, final List<JsParam> fields) {
     String var = "";
     boolean varFound = false;
@@ -121,6 +109,6 @@ class JsDocTypedefParser {
    * @return
    */
   private String stripAndReplace(final String string) {
-    return string.replaceFirst("^ +\\*", "").replace(" ", "");
+    return JsDocScanner.stripComment(string);
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.lang.js.JsType;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of parsed types by their raw type. Because {@link JsType}
+ * is immutable, the same instance is shared by all elements with the same
+ * type, in all files. The cache is bounded: when the maximum number of types
+ * is reached no more types are added, the types already in the cache remain.
+ */
+public class JsTypeCache {
+
+  /**
+   * Default maximum number of types in the cache.
+   */
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final ConcurrentMap<String, JsType> types =
+      new ConcurrentHashMap<>();
+  private final int maxSize;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public JsTypeCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize maximum number of types in the cache
+   */
+  public JsTypeCache(final int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the cached type or null if not in the cache.
+   * @param rawType raw type as passed to the parser
+   * @return type or null
+   */
+  public JsType get(final String rawType) {
+    final JsType type = types.get(rawType);
+    (type == null ? misses : hits).incrementAndGet();
+    return type;
+  }
+
+  /**
+   * Adds the type to the cache, unless the cache is full.
+   * @param rawType raw type as passed to the parser
+   * @param type parsed type
+   */
+  public void put(final String rawType, final JsType type) {
+    if (types.size() < maxSize) {
+      types.putIfAbsent(rawType, type);
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return types.size();
+  }
+}
@@ -19,16 +19,45 @@ import gruifo.lang.js.JsType;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Parse the types of @param, @return and @type elements.
+ * Parse the types of @param, @return and @type elements. Parsed types are
+ * looked up in and added to the type cache, if the parser has one.
  */
 public class JsTypeParser {
 
   private static final String FUNCTION = "function(";
 
+  private final JsTypeCache cache;
+
+  /**
+   * Creates a parser without cache.
+   */
+  public JsTypeParser() {
+    this(null);
+  }
+
+  /**
+   * @param cache cache of parsed types, can be shared between parsers, or
+   *          null for no cache
+   */
+  public JsTypeParser(final JsTypeCache cache) {
+    this.cache = cache;
+  }
+
   public JsType parseType(final String rawType) {
+    if (cache == null) {
+      return parse(rawType);
+    }
+    JsType type = cache.get(rawType);
+    if (type == null) {
+      type = parse(rawType);
+      cache.put(rawType, type);
+    }
+    return type;
+  }
+
+  private JsType parse(final String rawType) {
     return typeParser(replaceRawType(stripParentheses(rawType)));
   }
 
@@ -52,161 +81,182 @@ public class JsTypeParser {
   }
 
   private JsType typeParser(final String rawType) {
-    final char[] chars = rawType.toCharArray();
     final JsType root;
-    final List<JsType> types = typeParser(rawType, chars, new AtomicInteger());
+    final List<JsType> types = new TypeScanner(rawType).parseTypes();
     if (types.size() == 1) {
       root = types.get(0);
     } else {
-      root = new JsType(rawType);
-      root.addChoices(types);
+      root = new JsType(null, rawType, false, false, false, false, false, types,
+          null);
     }
     return root;
   }
 
-  private List<JsType> typeParser(final String rawType, final char[] chars,
-      final AtomicInteger idx) {
-    int startPos = idx.get();
-    int startPosChoices = startPos;
-    int nameEndPos = startPos;
-    int parentheses = 0;
-    int endPos;
-    boolean notNull = false, canNull = false, optional = false, varArgs = false,
-        newType = false, decreaseDepth = false, inFunction = false,
-        endFunction = false, param = false;
-    final List<JsType> types = new ArrayList<>();
-    final List<JsType> choices = new ArrayList<>();
-    List<JsType> subTypes = null;
-    for (; idx.get() < chars.length; idx.incrementAndGet()) {
-      final int i = idx.get();
-      endPos = i;
-      switch (chars[i]) {
-      case 'f':
-        if (rawType.substring(i).startsWith(FUNCTION)) {
-          inFunction = true;
+  /**
+   * Scans a single type expression with a cursor into the expression.
+   * Generic types are parsed recursively, continuing at the cursor. Keywords
+   * are matched in place, so only the names and types stored in the
+   * {@link JsType} objects are copied from the expression.
+   */
+  private static final class TypeScanner {
+    private final String rawType;
+    private final int length;
+    private int pos;
+
+    TypeScanner(final String rawType) {
+      this.rawType = rawType;
+      length = rawType.length();
+    }
+
+    List<JsType> parseTypes() {
+      int startPos = pos;
+      int startPosChoices = startPos;
+      int nameEndPos = startPos;
+      int parentheses = 0;
+      int endPos;
+      boolean notNull = false, canNull = false, optional = false,
+          varArgs = false, newType = false, decreaseDepth = false,
+          inFunction = false, endFunction = false, param = false;
+      final List<JsType> types = new ArrayList<>();
+      final List<JsType> choices = new ArrayList<>();
+      List<JsType> subTypes = null;
+      for (; pos < length; pos++) {
+        final int i = pos;
+        endPos = i;
+        switch (rawType.charAt(i)) {
+        case 'f':
+          if (rawType.startsWith(FUNCTION, i)) {
+            inFunction = true;
+            parentheses++;
+          }
+          break;
+        case '(':
           parentheses++;
-        }
-        break;
-      case '(':
-        parentheses++;
-        break;
-      case ')':
-        parentheses--;
-        endFunction = parentheses == 0;
-        break;
-      case ' ':
-        if (startPos == endPos) {
-          startPos++;
-        } else {
+          break;
+        case ')':
+          parentheses--;
+          endFunction = parentheses == 0;
+          break;
+        case ' ':
+          if (startPos == endPos) {
+            startPos++;
+          } else {
+            newType = true;
+            endPos--;
+          }
+          break;
+        case '.': // generic or varargs .... varargs before
+          if (rawType.charAt(i + 1) == '<') {
+            endPos--;
+            nameEndPos = endPos;
+            pos += 2; // skip past '<'
+            subTypes = parseTypes();
+            endPos = pos;
+          } else if (rawType.charAt(i + 1) == '.'
+              && rawType.charAt(i + 2) == '.') {
+            varArgs = true;
+            pos += 2; // skip ...
+            startPos = i + 3;
+          }
+          break;
+        case ',':
+          // set inFunction to false  when we passed the end of the function,
+          // But ONLY when inFunction is already true
+          inFunction = inFunction && !endFunction;
+          param = true;
           newType = true;
           endPos--;
-        }
-        break;
-      case '.': // generic or varargs .... varargs before
-        if (chars[i+1] == '<') {
+          break;
+        case '<':
+          // should not happen...
+          break;
+        case '>':
+          decreaseDepth = true;
+          newType = true;
           endPos--;
-          nameEndPos = endPos;
-          idx.incrementAndGet(); // skip past '<'
-          idx.incrementAndGet();
-          subTypes = typeParser(rawType, chars, idx);
-          endPos = idx.get();
-        } else if (chars[i+1] == '.' && (chars[i+2] == '.')) {
-          varArgs = true;
-          idx.addAndGet(2); // skip ...
-          startPos = i + 3;
-        }
-        break;
-      case ',':
-        // set inFunction to false  when we passed the end of the function,
-        // But ONLY when inFunction is already true
-        inFunction = inFunction && !endFunction;
-        param = true;
-        newType = true;
-        endPos--;
-        break;
-      case '<':
-        // should not happen...
-        break;
-      case '>':
-        decreaseDepth = true;
-        newType = true;
-        endPos--;
-        break;
-      case '|': // new choice argument
-        newType = true;
-        endPos--;
-        break;
-      case '!': // argument can't be null. !  is positioned before type
-        notNull = true;
-        startPos++;
-        break;
-      case '?': // argument can be null. ? is positioned before type
-        if (startPos == endPos) {
-          canNull = true;
+          break;
+        case '|': // new choice argument
+          newType = true;
+          endPos--;
+          break;
+        case '!': // argument can't be null. !  is positioned before type
+          notNull = true;
           startPos++;
+          break;
+        case '?': // argument can be null. ? is positioned before type
+          if (startPos == endPos) {
+            canNull = true;
+            startPos++;
+          }
+          break;
+        case '=': // optional argument. = is positioned after type
+          optional = true;
+          endPos--;
+          // is last so we can finish type
+          break;
+        default:
+          break;
         }
-        break;
-      case '=': // optional argument. = is positioned after type
-        optional = true;
-        endPos--;
-        // is last so we can finish type
-        break;
-      default:
-        break;
-      }
-      if (subTypes == null) {
-        nameEndPos = endPos;
-      }
-      boolean lastToken = idx.get() == chars.length - 1;
-      if ((!inFunction && newType) || lastToken) {
-        final String sType = rawType.substring(startPos, endPos + 1);
-        final String name = rawType.substring(startPos, nameEndPos + 1);
-        boolean withNull = false;
-        if ("undefined".equals(sType) || "null".equals(sType)) {
-          withNull = true;
-        } else {
-          final JsType jsType = new JsType(name, sType);
-          jsType.setFunction(sType.startsWith(FUNCTION));
-          jsType.setVarArgs(varArgs);
-          jsType.setNotNull(notNull);
-          jsType.setNull(canNull);
-          jsType.setOptional(optional);
-          jsType.addSubTypes(subTypes);
-          choices.add(jsType);
+        if (subTypes == null) {
+          nameEndPos = endPos;
         }
-        lastToken = idx.get() == chars.length - 1;
-        if (param || decreaseDepth || lastToken) {
-          if (choices.size() == 1) {
-            choices.get(0).setNull(withNull);
-            types.add(choices.get(0));
-          } else {
-            final JsType choicesType =
-                new JsType(rawType.substring(startPosChoices, endPos + 1));
-            choicesType.setNull(withNull);
-            choicesType.addChoices(choices);
-            types.add(choicesType);
+        final boolean lastToken = pos == length - 1;
+        if ((!inFunction && newType) || lastToken) {
+          if (nameEndPos + 1 < startPos) {
+            throw new StringIndexOutOfBoundsException(
+                "Malformed type at " + startPos + ": " + rawType);
           }
-          choices.clear();
-          if (decreaseDepth || lastToken) {
-            return types;
+          boolean withNull = false;
+          if (matches("undefined", startPos, endPos)
+              || matches("null", startPos, endPos)) {
+            withNull = true;
+          } else {
+            final String sType = rawType.substring(startPos, endPos + 1);
+            final String name = nameEndPos == endPos ? sType
+                : rawType.substring(startPos, nameEndPos + 1);
+            choices.add(new JsType(name, sType, sType.startsWith(FUNCTION),
+                varArgs, notNull, canNull, optional, null, subTypes));
           }
-          if (param) {
-            startPosChoices = i + 1;
+          if (param || decreaseDepth || lastToken) {
+            if (choices.size() == 1) {
+              types.add(choices.get(0).withNull(withNull));
+            } else {
+              types.add(new JsType(null,
+                  rawType.substring(startPosChoices, endPos + 1), false, false,
+                  false, withNull, false, choices, null));
+            }
+            choices.clear();
+            if (decreaseDepth || lastToken) {
+              return types;
+            }
+            if (param) {
+              startPosChoices = i + 1;
+            }
           }
+          startPos = pos + 1;
+          newType = false;
+          param = false;
+          varArgs = false;
+          notNull = false;
+          canNull = false;
+          optional = false;
+          inFunction = false;
+          endFunction = false;
+          decreaseDepth = false;
+          subTypes = null;
         }
-        startPos = idx.get() + 1;
-        newType = false;
-        param = false;
-        varArgs = false;
-        notNull = false;
-        canNull = false;
-        optional = false;
-        inFunction = false;
-        endFunction = false;
-        decreaseDepth = false;
-        subTypes = null;
       }
+      return types;
+    }
+
+    /**
+     * Returns true if the expression from start up to and including end is
+     * the given text.
+     */
+    private boolean matches(final String text, final int start,
+        final int end) {
+      return end - start + 1 == text.length()
+          && rawType.startsWith(text, start);
     }
-    return types;
   }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of parsing a single JavaScript file.
+ */
+public class ParsedFile {
+  private final List<JsFile> jsFiles = new ArrayList<>();
+  private final List<JsMethod> staticMethods = new ArrayList<>();
+  private final Map<String, JsElement> staticConsts = new HashMap<>();
+
+  public List<JsFile> getJsFiles() {
+    return jsFiles;
+  }
+
+  public Map<String, JsElement> getStaticConsts() {
+    return staticConsts;
+  }
+
+  public List<JsMethod> getStaticMethods() {
+    return staticMethods;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Parser;
+import org.mozilla.javascript.ast.AstRoot;
+
+/**
+ * Creates Rhino parsers configured to record the JSDoc comments. A Rhino
+ * {@link Parser} can only parse once, but it only reads its
+ * {@link CompilerEnvirons}. Therefore the environment is created once per
+ * thread and shared by all parsers created on that thread. Instances of this
+ * class can be shared between threads.
+ */
+public class ParserFactory {
+
+  private final ThreadLocal<CompilerEnvirons> environs =
+      new ThreadLocal<CompilerEnvirons>() {
+    @Override
+    protected CompilerEnvirons initialValue() {
+      return createEnvirons();
+    }
+  };
+
+  /**
+   * Returns a new Rhino parser, using the environment of the current thread.
+   * @return new parser
+   */
+  public Parser newParser() {
+    return new Parser(environs.get());
+  }
+
+  /**
+   * Parses JavaScript source code.
+   * @param source JavaScript source code
+   * @param fileName name of the file the source code was read from
+   * @return syntax tree of the source code
+   */
+  public AstRoot parse(final String source, final String fileName) {
+    return newParser().parse(source, fileName, 1);
+  }
+
+  /**
+   * Creates a new environment with the settings used to parse JavaScript
+   * files with JSDoc comments.
+   * @return new environment
+   */
+  public static CompilerEnvirons createEnvirons() {
+    final CompilerEnvirons env = new CompilerEnvirons();
+    env.setRecordingLocalJsDocComments(true);
+    env.setAllowSharpComments(true);
+    env.setRecordingComments(true);
+    return env;
+  }
+}
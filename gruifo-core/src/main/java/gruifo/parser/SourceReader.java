@@ -0,0 +1,153 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads JavaScript source files into a string with an explicit charset.
+ *
+ * <p>Files larger than {@link #MAP_THRESHOLD} bytes are memory mapped, smaller
+ * files are read into a byte buffer that is reused per thread. The bytes are
+ * decoded into a char buffer that is also reused per thread, so the only copy
+ * made is the returned string. Malformed input is replaced, like a
+ * {@link java.io.Reader} would do.
+ */
+public class SourceReader {
+
+  /**
+   * Files with more bytes than this are memory mapped instead of read.
+   */
+  static final int MAP_THRESHOLD = 1024 * 1024;
+  /**
+   * Maximum number of chars kept in the pooled char buffer per thread.
+   */
+  private static final int MAX_POOLED_CHARS = 4 * MAP_THRESHOLD;
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<ByteBuffer> BYTES =
+      new ThreadLocal<ByteBuffer>();
+  private static final ThreadLocal<CharBuffer> CHARS =
+      new ThreadLocal<CharBuffer>();
+
+  private final Charset charset;
+
+  /**
+   * Reader reading UTF-8 encoded files.
+   */
+  public SourceReader() {
+    this(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param charset charset of the files to read
+   */
+  public SourceReader(final Charset charset) {
+    this.charset = charset;
+  }
+
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Reads the content of the file.
+   * @param file file to read
+   * @return content of the file
+   * @throws IOException
+   */
+  public String read(final File file) throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large: " + file);
+      }
+      final ByteBuffer bytes;
+      if (size > MAP_THRESHOLD) {
+        bytes = channel.map(MapMode.READ_ONLY, 0, size);
+      } else {
+        bytes = pooledBytes((int) size);
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+          // read until the buffer is full or the end of the file.
+        }
+        bytes.flip();
+      }
+      return decode(bytes);
+    }
+  }
+
+  private String decode(final ByteBuffer bytes) {
+    final CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer chars = pooledChars(
+        (int) (bytes.remaining() * (double) decoder.averageCharsPerByte()));
+    while (decoder.decode(bytes, chars, true).isOverflow()) {
+      chars = grow(chars, bytes.remaining());
+    }
+    while (decoder.flush(chars).isOverflow()) {
+      chars = grow(chars, 1);
+    }
+    chars.flip();
+    return chars.toString();
+  }
+
+  private static CharBuffer grow(final CharBuffer chars, final int remaining) {
+    final CharBuffer larger = CharBuffer.allocate(
+        Math.max(chars.capacity() * 2, chars.capacity() + remaining));
+    chars.flip();
+    larger.put(chars);
+    if (larger.capacity() <= MAX_POOLED_CHARS) {
+      CHARS.set(larger);
+    }
+    return larger;
+  }
+
+  private static ByteBuffer pooledBytes(final int size) {
+    ByteBuffer buffer = BYTES.get();
+    if (buffer == null || buffer.capacity() < size) {
+      buffer = ByteBuffer.allocate(Math.max(size, INITIAL_BUFFER_SIZE));
+      BYTES.set(buffer);
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  private static CharBuffer pooledChars(final int size) {
+    if (size > MAX_POOLED_CHARS) {
+      return CharBuffer.allocate(size);
+    }
+    CharBuffer buffer = CHARS.get();
+    if (buffer == null || buffer.capacity() < size) {
+      buffer = CharBuffer.allocate(Math.max(size, INITIAL_BUFFER_SIZE));
+      CHARS.set(buffer);
+    }
+    buffer.clear();
+    return buffer;
+  }
+}
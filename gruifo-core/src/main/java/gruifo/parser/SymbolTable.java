@@ -0,0 +1,279 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+import gruifo.lang.js.JsParam;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index of the classes of all parsed files, used to attach static methods and
+ * constants to their class when the class is defined in another file than
+ * the static itself. Classes are indexed on their fully qualified name and the
+ * statics already part of a class on the fully qualified name of the static,
+ * so each static is resolved with a hash lookup.
+ *
+ * <p>Attaching adds the statics to the classes, which are also the parse
+ * results. Therefore {@link #detach()} must be called before the same parse
+ * results are attached with another table.
+ */
+public class SymbolTable {
+
+  private final Map<String, JsFile> types = new HashMap<>();
+  private final Map<JsFile, JsFile> topLevel = new IdentityHashMap<>();
+  private final Map<String, Object> members = new HashMap<>();
+  private final Map<JsFile, List<Object>> attached = new IdentityHashMap<>();
+  private final List<JsMethod> missedMethods = new ArrayList<>();
+  private final Map<String, JsElement> missedConsts = new LinkedHashMap<>();
+
+  /**
+   * Adds the classes, including inner classes, to the index.
+   * @param jsFiles top level classes
+   */
+  public void addFiles(final Collection<JsFile> jsFiles) {
+    for (final JsFile jsFile : jsFiles) {
+      addFile(jsFile, jsFile);
+    }
+  }
+
+  private void addFile(final JsFile jsFile, final JsFile outer) {
+    final String name = jsFile.getFullClassName();
+    if (!types.containsKey(name)) {
+      types.put(name, jsFile);
+    }
+    topLevel.put(jsFile, outer);
+    for (final JsMethod method : jsFile.getMethods()) {
+      if (method.isStaticMethod()) {
+        members.put(name + '.' + method.getMethodName(), method);
+      }
+    }
+    for (final JsParam field : jsFile.getFields()) {
+      // Constants are stored with their fully qualified name.
+      if (field.getName().indexOf('.') > 0) {
+        members.put(field.getName(), field);
+      }
+    }
+    for (final JsFile inner : jsFile.getInnerJFiles()) {
+      addFile(inner, outer);
+    }
+  }
+
+  /**
+   * Returns the class with the given fully qualified name.
+   * @param name fully qualified name
+   * @return class or null if not indexed
+   */
+  public JsFile getType(final String name) {
+    return types.get(name);
+  }
+
+  /**
+   * Attaches the static methods and constants of a parsed file to their
+   * classes. Statics of which the class is not indexed, and static
+   * properties, are kept as missed. Statics already part of their class are
+   * ignored. Prototype methods of a class in another file are also listed as
+   * static methods of the parsed file, but are never attached.
+   * @param parsedFile parsed file
+   */
+  public void attach(final ParsedFile parsedFile) {
+    for (final JsMethod method : parsedFile.getStaticMethods()) {
+      final JsFile owner = method.isStaticMethod()
+          ? types.get(method.getPackageName()) : null;
+      if (owner == null || JavaScriptFileParser.isStaticProperty(method)) {
+        missedMethods.add(method);
+      } else if (addMember(method.getPackageName() + '.'
+          + method.getMethodName(), owner, method)) {
+        owner.addMethod(method);
+      }
+    }
+    for (final Entry<String, JsElement> cnst
+        : parsedFile.getStaticConsts().entrySet()) {
+      final JsFile owner = getConstOwner(cnst.getKey());
+      if (owner == null) {
+        missedConsts.put(cnst.getKey(), cnst.getValue());
+      } else {
+        final JsParam field = new JsParam(cnst.getKey(), cnst.getValue());
+        if (addMember(cnst.getKey(), owner, field)) {
+          owner.addField(field);
+        }
+      }
+    }
+  }
+
+  private JsFile getConstOwner(final String constName) {
+    final int classSep = constName.lastIndexOf('.');
+    if (classSep <= 0) {
+      return null;
+    }
+    final String fullClassName = constName.substring(0, classSep);
+    final JsFile owner = types.get(fullClassName);
+    return owner == null
+        ? types.get(JavaScriptFileParser.getFullConstName(fullClassName))
+        : owner;
+  }
+
+  private boolean addMember(final String name, final JsFile owner,
+      final Object member) {
+    if (members.containsKey(name)) {
+      return false;
+    }
+    members.put(name, member);
+    List<Object> list = attached.get(owner);
+    if (list == null) {
+      list = new ArrayList<>();
+      attached.put(owner, list);
+    }
+    list.add(member);
+    return true;
+  }
+
+  /**
+   * Removes all statics attached with this table from their classes.
+   */
+  public void detach() {
+    for (final Entry<JsFile, List<Object>> entry : attached.entrySet()) {
+      entry.getKey().getMethods().removeAll(entry.getValue());
+      entry.getKey().getFields().removeAll(entry.getValue());
+    }
+  }
+
+  /**
+   * Returns the top level classes of which the attached statics differ from
+   * the statics attached by a previous table. Only classes in this table are
+   * returned.
+   * @param previous table used to attach previously, or null if none
+   * @return top level classes with changed statics
+   */
+  public Set<JsFile> getChangedFiles(final SymbolTable previous) {
+    final Set<JsFile> owners = new LinkedHashSet<>(attached.keySet());
+    if (previous != null) {
+      owners.addAll(previous.attached.keySet());
+    }
+    final Set<JsFile> changed = new LinkedHashSet<>();
+    for (final JsFile owner : owners) {
+      final JsFile outer = topLevel.get(owner);
+      if (outer != null && !sameMembers(attached.get(owner),
+          previous == null ? null : previous.attached.get(owner))) {
+        changed.add(outer);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Compares attached members. Fields are created when attached, so these
+   * are compared on name and parsed element.
+   */
+  private static boolean sameMembers(final List<Object> members,
+      final List<Object> previous) {
+    final int size = members == null ? 0 : members.size();
+    if (size != (previous == null ? 0 : previous.size())) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      final Object member = members.get(i);
+      final Object other = previous.get(i);
+      if (member instanceof JsParam && other instanceof JsParam) {
+        final JsParam field = (JsParam) member;
+        final JsParam otherField = (JsParam) other;
+        if (field.getElement() != otherField.getElement()
+            || !field.getName().equals(otherField.getName())) {
+          return false;
+        }
+      } else if (member != other) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the static methods of which the class was not found.
+   * @return missed static methods
+   */
+  public List<JsMethod> getMissedMethods() {
+    return missedMethods;
+  }
+
+  /**
+   * Returns the constants of which the class was not found.
+   * @return missed constants by name
+   */
+  public Map<String, JsElement> getMissedConsts() {
+    return missedConsts;
+  }
+
+  /**
+   * Returns the fully qualified names of the classes, including inner
+   * classes, defined in a parsed file.
+   * @param parsedFile parsed file
+   * @return names of the classes
+   */
+  public static Set<String> getDefines(final ParsedFile parsedFile) {
+    final Set<String> defines = new TreeSet<>();
+    addNames(defines, parsedFile.getJsFiles());
+    return defines;
+  }
+
+  private static void addNames(final Set<String> names,
+      final Collection<JsFile> jsFiles) {
+    for (final JsFile jsFile : jsFiles) {
+      names.add(jsFile.getFullClassName());
+      addNames(names, jsFile.getInnerJFiles());
+    }
+  }
+
+  /**
+   * Returns the fully qualified names of the classes the statics of a parsed
+   * file, that are not part of a class of the file itself, can belong to.
+   * @param parsedFile parsed file
+   * @return names of the classes
+   */
+  public static Set<String> getUses(final ParsedFile parsedFile) {
+    final Set<String> uses = new TreeSet<>();
+    for (final JsMethod method : parsedFile.getStaticMethods()) {
+      if (method.isStaticMethod()) {
+        uses.add(method.getPackageName());
+      }
+    }
+    for (final String constName : parsedFile.getStaticConsts().keySet()) {
+      final int classSep = constName.lastIndexOf('.');
+      if (classSep > 0) {
+        final String fullClassName = constName.substring(0, classSep);
+        uses.add(fullClassName);
+        final String fullConstName =
+            JavaScriptFileParser.getFullConstName(fullClassName);
+        if (!fullConstName.isEmpty()) {
+          uses.add(fullConstName);
+        }
+      }
+    }
+    return uses;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import gruifo.cache.ParseCache;
+import gruifo.incremental.BuildStamp;
+import gruifo.incremental.IncrementalBuild;
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsParam;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link Controller}.
+ */
+public class ControllerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testParallelSameAsSequential() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 40, 10);
+    final File sequential = generate(src, "sequential", 1);
+    final File parallel = generate(src, "parallel", 4);
+    assertSameFiles(sequential, parallel);
+  }
+
+  @Test
+  public void testParseCache() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 10, 10);
+    final ParseCache cache = new ParseCache(folder.newFolder("cache"),
+        Long.MAX_VALUE);
+    final File expected = generate(src, "expected", 1);
+    final File fromSource = generate(src, "fromSource", 1, cache);
+    assertEquals("Cache misses", 10, cache.getMisses());
+    final File fromCache = generate(src, "fromCache", 1, cache);
+    assertEquals("Cache hits", 10, cache.getHits());
+    assertSameFiles(expected, fromSource);
+    assertSameFiles(expected, fromCache);
+  }
+
+  @Test
+  public void testIncremental() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 10, 5);
+    final File incremental = folder.newFolder("incremental");
+    generate(src, incremental, 1, true);
+    assertTrue("Manifest written",
+        new File(incremental, IncrementalBuild.MANIFEST_FILE).isFile());
+    // unchanged sources should not be generated again.
+    final File unchanged = new File(incremental, "synth/pkg1/Class1.java");
+    Files.write(unchanged.toPath(), "marker".getBytes(StandardCharsets.UTF_8));
+    generate(src, incremental, 1, true);
+    assertEquals("Unchanged file not generated", "marker",
+        new String(Files.readAllBytes(unchanged.toPath()),
+            StandardCharsets.UTF_8));
+    Files.write(unchanged.toPath(), Files.readAllBytes(
+        new File(generate(src, "full1", 1), "synth/pkg1/Class1.java")
+        .toPath()));
+    // change, add and remove a source.
+    try (final Writer writer = new FileWriter(new File(src, "class3.js"))) {
+      writer.append(SyntheticSources.generate("synth.pkg3", "Class3", 3,
+          new Random(3)));
+    }
+    try (final Writer writer = new FileWriter(new File(src, "class10.js"))) {
+      writer.append(SyntheticSources.generate("synth.pkg0", "Class10", 3,
+          new Random(10)));
+    }
+    assertTrue(new File(src, "class5.js").delete());
+    generate(src, incremental, 4, true);
+    assertTrue(new File(incremental, IncrementalBuild.MANIFEST_FILE).delete());
+    assertSameFiles(generate(src, "full2", 1), incremental);
+  }
+
+  @Test
+  public void testIncrementalStatics() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 3, 2);
+    final File statics = new File(src, "statics.js");
+    writeStatic(statics, "create");
+    final File incremental = folder.newFolder("incremental");
+    generate(src, incremental, 1, true);
+    final File class1 = new File(incremental, "synth/pkg1/Class1.java");
+    assertTrue("Static attached to class in other file", new String(
+        Files.readAllBytes(class1.toPath()), StandardCharsets.UTF_8)
+        .contains("$wnd.synth.pkg1.Class1.create(value)"));
+    // only the file with the static changes, the class must be generated.
+    writeStatic(statics, "build");
+    assertTrue(statics.setLastModified(statics.lastModified() + 1000));
+    generate(src, incremental, 1, true);
+    assertTrue(new File(incremental, IncrementalBuild.MANIFEST_FILE).delete());
+    assertSameFiles(generate(src, "full", 1), incremental);
+  }
+
+  @Test
+  public void testPrototypeMethodInOtherFile() throws IOException {
+    // test_abstract_class.js has an abstract prototype method of the
+    // SomeClass class in test_class.js, which must not be attached.
+    final File src = new File(getClass().getResource("parser").getFile());
+    final File outputPath = folder.newFolder("output");
+    new Controller(Collections.singletonList(src), outputPath)
+    .run(OutputType.JSNI);
+    final String someClass = new String(Files.readAllBytes(
+        new File(outputPath, "nl/test/SomeClass.java").toPath()),
+        StandardCharsets.UTF_8);
+    assertTrue("Not abstract",
+        someClass.contains("public class SomeClass extends"));
+    assertTrue("Constructor", someClass.contains(
+        "public static native SomeClass newSomeClass() /*-{"));
+    assertTrue("Constructor with options", someClass.contains(
+        "newSomeClass(java.util.ArrayList opt_options) /*-{"));
+    assertFalse("Abstract method not attached",
+        someClass.contains("setSomeActractMethod"));
+  }
+
+  private static void writeStatic(final File file, final String name)
+      throws IOException {
+    try (final Writer writer = new FileWriter(file)) {
+      writer.append("/**\n * @param {number} value\n */\n"
+          + "synth.pkg1.Class1." + name + " = function(value) {};\n");
+    }
+  }
+
+  @Test
+  public void testGroupFiles() {
+    final JsFile b = new JsFile("a.js", "a", "B", false);
+    final JsFile c = new JsFile("a.js", "a.B", "C", false);
+    final JsFile d = new JsFile("a.js", "a.B.C", "D", false);
+    final JsFile e = new JsFile("a.js", "x.C", "E", false);
+    final Controller controller = new Controller(
+        Collections.<File>emptyList(), folder.getRoot());
+    assertEquals("Top level classes", Arrays.asList(e, b),
+        controller.groupFiles(Arrays.asList(d, e, c, b)));
+    assertEquals(Collections.singletonList(c), b.getInnerJFiles());
+    assertEquals(Collections.singletonList(d), c.getInnerJFiles());
+    assertTrue("Not nested on simple name", e.getInnerJFiles().isEmpty());
+  }
+
+  @Test
+  public void testPrepareFields() {
+    final JsParam a1 = new JsParam("a", null);
+    final JsParam a2 = new JsParam("a", null);
+    final JsParam b = new JsParam("b", null);
+    final JsElement element = new JsElement();
+    element.setTypeDef(new ArrayList<>(Arrays.asList(a1, b, a2,
+        new JsParam("c", null))));
+    final JsFile jsFile = new JsFile("a.js", "a", "Options", false);
+    jsFile.setElement(element);
+    for (final String name : new String[] {"a", "c", "c", "d"}) {
+      jsFile.addField(new JsParam(name, null));
+    }
+    new Controller(Collections.<File>emptyList(), folder.getRoot())
+    .prepareFields(Collections.singletonList(jsFile));
+    assertEquals("First typedef field per prototype field removed",
+        Arrays.asList(b, a2), element.getTypeDef());
+  }
+
+  @Test
+  public void testSkipUpToDate() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 5, 5);
+    final File outputPath = folder.newFolder("output");
+    assertTrue("First run generates", skipUpToDate(src, outputPath));
+    assertTrue("Stamp written",
+        new File(outputPath, BuildStamp.STAMP_FILE).isFile());
+    assertFalse("Unchanged run skipped", skipUpToDate(src, outputPath));
+    final File source = new File(src, "class2.js");
+    assertTrue(source.setLastModified(source.lastModified() + 1000));
+    assertTrue("Changed source generates", skipUpToDate(src, outputPath));
+    assertFalse("Unchanged run skipped", skipUpToDate(src, outputPath));
+  }
+
+  @Test
+  public void testSkipUpToDateChangedOutput() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 5, 5);
+    final File outputPath = folder.newFolder("output");
+    assertTrue("First run generates", skipUpToDate(src, outputPath));
+    final File output = new File(outputPath, "synth/pkg1/Class1.java");
+    final byte[] content = Files.readAllBytes(output.toPath());
+    assertTrue(output.delete());
+    assertTrue("Missing output generates", skipUpToDate(src, outputPath));
+    assertArrayEquals("Output written again", content,
+        Files.readAllBytes(output.toPath()));
+    assertFalse("Unchanged run skipped", skipUpToDate(src, outputPath));
+    Files.write(output.toPath(), "edited".getBytes(StandardCharsets.UTF_8));
+    assertTrue("Edited output generates", skipUpToDate(src, outputPath));
+    assertArrayEquals("Edited output written again", content,
+        Files.readAllBytes(output.toPath()));
+  }
+
+  private boolean skipUpToDate(final File src, final File outputPath) {
+    final Controller controller =
+        new Controller(Collections.singletonList(src), outputPath);
+    controller.setSkipUpToDate(true);
+    return controller.run(OutputType.JSNI);
+  }
+
+  private File generate(final File src, final String target,
+      final int threads) throws IOException {
+    return generate(src, target, threads, null);
+  }
+
+  private File generate(final File src, final String target,
+      final int threads, final ParseCache cache) throws IOException {
+    final File outputPath = folder.newFolder(target);
+    final Controller controller =
+        new Controller(Collections.singletonList(src), outputPath);
+    controller.setThreads(threads);
+    controller.setParseCache(cache);
+    controller.run(OutputType.JSNI);
+    return outputPath;
+  }
+
+  private void generate(final File src, final File outputPath,
+      final int threads, final boolean incremental) {
+    final Controller controller =
+        new Controller(Collections.singletonList(src), outputPath);
+    controller.setThreads(threads);
+    controller.setIncremental(incremental);
+    controller.run(OutputType.JSNI);
+  }
+
+  private void assertSameFiles(final File expected, final File actual)
+      throws IOException {
+    final List<String> expectedFiles = listFiles(expected);
+    assertFalse("No files generated", expectedFiles.isEmpty());
+    assertEquals("Generated files", expectedFiles, listFiles(actual));
+    for (final String file : expectedFiles) {
+      assertArrayEquals("Content of " + file,
+          Files.readAllBytes(new File(expected, file).toPath()),
+          Files.readAllBytes(new File(actual, file).toPath()));
+    }
+  }
+
+  private List<String> listFiles(final File dir) {
+    final List<String> files = new ArrayList<>();
+    collectFiles(files, dir, "");
+    Collections.sort(files);
+    return files;
+  }
+
+  private void collectFiles(final List<String> files, final File dir,
+      final String prefix) {
+    for (final File file : dir.listFiles()) {
+      if (file.isDirectory()) {
+        collectFiles(files, file, prefix + file.getName() + '/');
+      } else {
+        files.add(prefix + file.getName());
+      }
+    }
+  }
+}
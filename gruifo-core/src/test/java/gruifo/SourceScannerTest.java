@@ -0,0 +1,104 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link SourceScanner}.
+ */
+public class SourceScannerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File root1;
+  private File root2;
+
+  @Before
+  public void before() throws IOException {
+    root1 = folder.newFolder("root1");
+    root2 = folder.newFolder("root2");
+    create(root1, "b.js", "a.js", "a.json", "xjs", "lib/c.js", "lib/c.min.js",
+        "test/d.js", "node_modules/x/e.js");
+    create(root2, "f.js", "sub/node_modules/g.js");
+  }
+
+  @Test
+  public void testScanAll() {
+    assertScan(new SourceScanner(), "root1/a.js", "root1/b.js",
+        "root1/lib/c.js", "root1/lib/c.min.js", "root1/node_modules/x/e.js",
+        "root1/test/d.js", "root2/f.js", "root2/sub/node_modules/g.js");
+  }
+
+  @Test
+  public void testExclude() {
+    final SourceScanner scanner = new SourceScanner();
+    scanner.addExclude("node_modules");
+    scanner.addExclude("*.min.js");
+    scanner.addExclude("test/**");
+    assertScan(scanner, "root1/a.js", "root1/b.js", "root1/lib/c.js",
+        "root2/f.js");
+  }
+
+  @Test
+  public void testInclude() {
+    final SourceScanner scanner = new SourceScanner();
+    scanner.addInclude("lib/**");
+    scanner.addInclude("f.*");
+    scanner.addExclude("c.min.js");
+    assertScan(scanner, "root1/lib/c.js", "root2/f.js");
+  }
+
+  @Test
+  public void testConcurrentSameAsSequential() {
+    final SourceScanner sequential = new SourceScanner();
+    final SourceScanner concurrent = new SourceScanner();
+    concurrent.setThreads(4);
+    final List<File> roots = Arrays.asList(root2, root1, root1);
+    assertEquals(sequential.scan(roots), concurrent.scan(roots));
+  }
+
+  private void assertScan(final SourceScanner scanner,
+      final String... expected) {
+    final List<String> actual = new ArrayList<>();
+    for (final File file : scanner.scan(Arrays.asList(root2, root1))) {
+      actual.add(folder.getRoot().toPath().relativize(file.toPath())
+          .toString().replace(File.separatorChar, '/'));
+    }
+    assertEquals(Arrays.asList(expected), actual);
+  }
+
+  private static void create(final File root, final String... files)
+      throws IOException {
+    for (final String name : files) {
+      final File file = new File(root, name);
+      file.getParentFile().mkdirs();
+      file.createNewFile();
+    }
+  }
+}
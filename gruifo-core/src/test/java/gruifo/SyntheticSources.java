@@ -0,0 +1,152 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates JavaScript files with JSDoc annotations in the style of the
+ * Closure library based sources gruifo is used on. The content only depends on
+ * the arguments, so the same arguments always result in the same files.
+ */
+public final class SyntheticSources {
+
+  private static final String[] TYPES = {"number", "string", "boolean",
+    "Array.<number>", "Array.<string>", "ol.Coordinate", "ol.Extent",
+    "Object.<string, *>", "function(ol.MapBrowserEvent): boolean",
+    "ol.proj.ProjectionLike"};
+
+  private SyntheticSources() {
+    // util
+  }
+
+  /**
+   * Writes files JavaScript files to the given directory, each file
+   * containing a class with the given number of methods.
+   *
+   * @param dir directory to write the files to
+   * @param files number of files to generate
+   * @param methods number of methods per class
+   * @return list of generated files
+   * @throws IOException
+   */
+  public static List<File> write(final File dir, final int files,
+      final int methods) throws IOException {
+    final Random random = new Random(files * 31 + methods);
+    final List<File> written = new ArrayList<>();
+    dir.mkdirs();
+    for (int i = 0; i < files; i++) {
+      final File file = new File(dir, "class" + i + ".js");
+      try (final Writer writer = new FileWriter(file)) {
+        writer.append(generate("synth.pkg" + (i % 10), "Class" + i, methods,
+            random));
+      }
+      written.add(file);
+    }
+    return written;
+  }
+
+  /**
+   * Returns the source of a JavaScript file with a single class.
+   *
+   * @param packageName name of the package of the class
+   * @param className name of the class
+   * @param methods number of methods of the class
+   * @param random random to pick parameter types with
+   * @return JavaScript source
+   */
+  public static String generate(final String packageName,
+      final String className, final int methods, final Random random) {
+    final String fullName = packageName + '.' + className;
+    final StringBuilder sb = new StringBuilder();
+    sb.append("/**\n * @classdesc\n * Synthetic class ").append(className)
+    .append(".\n *\n * @constructor\n * @extends {ol.Object}\n")
+    .append(" * @param {").append(fullName)
+    .append("Options=} opt_options Options.\n * @api stable\n */\n")
+    .append(fullName).append(" = function(opt_options) {\n")
+    .append("  var options = opt_options || {};\n")
+    .append("  this.value_ = options.value;\n};\n\n");
+    sb.append("/**\n * @typedef {{value: (number|undefined),\n")
+    .append(" *     name: (string|undefined),\n")
+    .append(" *     extent: (ol.Extent|undefined)}}\n * @api\n */\n")
+    .append(fullName).append("Options;\n\n");
+    sb.append("/**\n * @enum {string}\n */\n").append(fullName)
+    .append("Property = {\n  VALUE: 'value',\n  NAME: 'name'\n};\n\n");
+    sb.append("/**\n * @const\n * @type {number}\n */\n").append(fullName)
+    .append(".DEFAULT_VALUE = 1;\n\n");
+    for (int m = 0; m < methods; m++) {
+      final int params = random.nextInt(4);
+      sb.append("/**\n * Synthetic method ").append(m).append(".\n");
+      final StringBuilder names = new StringBuilder();
+      for (int p = 0; p < params; p++) {
+        sb.append(" * @param {").append(type(random));
+        if (random.nextInt(3) == 0) {
+          sb.append('|').append(type(random));
+        }
+        if (p == params - 1 && random.nextBoolean()) {
+          sb.append('=');
+        }
+        sb.append("} param").append(p).append(" Parameter ").append(p)
+        .append(".\n");
+        names.append(p == 0 ? "" : ", ").append("param").append(p);
+      }
+      if (random.nextBoolean()) {
+        sb.append(" * @return {").append(type(random))
+        .append("} Return value.\n");
+      }
+      sb.append(" * @api\n */\n").append(fullName)
+      .append(".prototype.method").append(m).append(" = function(")
+      .append(names).append(") {\n")
+      .append("  if (this.value_ > 0) {\n")
+      .append("    return this.value_ * 2;\n  }\n")
+      .append("  return goog.isDef(this.value_) ? this.value_ : 0;\n};\n\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns JSDoc type expressions, like the ones found in @param and @return
+   * annotations, without the surrounding braces.
+   *
+   * @param count number of types to return
+   * @param random random to pick the types with
+   * @return list of type expressions
+   */
+  public static List<String> types(final int count, final Random random) {
+    final List<String> types = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final StringBuilder sb = new StringBuilder(type(random));
+      for (int choices = random.nextInt(3); choices > 0; choices--) {
+        sb.append('|').append(type(random));
+      }
+      if (random.nextInt(4) == 0) {
+        sb.append('=');
+      }
+      types.add(sb.toString());
+    }
+    return types;
+  }
+
+  private static String type(final Random random) {
+    return TYPES[random.nextInt(TYPES.length)];
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link Watcher}.
+ */
+public class WatcherTest {
+
+  private static final long OLD_TIME = 1000000000000L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testUpdate() throws IOException {
+    final File src = folder.newFolder("src");
+    SyntheticSources.write(src, 5, 5);
+    final File outputPath = folder.newFolder("output");
+    final Controller controller =
+        new Controller(Collections.singletonList(src), outputPath);
+    final Watcher watcher =
+        new Watcher(controller, controller.createPrinter(OutputType.JSNI));
+    assertEquals("All files generated", 5, watcher.update());
+    assertEquals("Nothing changed", 0, watcher.update());
+    final File unchanged = new File(outputPath, "synth/pkg1/Class1.java");
+    assertTrue(unchanged.setLastModified(OLD_TIME));
+
+    final File class2 = new File(src, "class2.js");
+    write(class2, "synth.pkg2", "Class2b");
+    assertTrue(class2.setLastModified(class2.lastModified() + 1000));
+    assertTrue(new File(src, "class3.js").delete());
+    assertEquals("1 changed and 1 removed", 2, watcher.update());
+    assertEquals("Other files not written", OLD_TIME, unchanged.lastModified());
+    assertFalse("Renamed class removed",
+        new File(outputPath, "synth/pkg2/Class2.java").exists());
+    assertFalse("Removed file removed",
+        new File(outputPath, "synth/pkg3/Class3.java").exists());
+
+    final File expected = folder.newFolder("expected");
+    new Controller(Collections.singletonList(src), expected)
+    .run(OutputType.JSNI);
+    assertArrayEquals(
+        Files.readAllBytes(new File(expected, "synth/pkg2/Class2b.java")
+            .toPath()),
+        Files.readAllBytes(new File(outputPath, "synth/pkg2/Class2b.java")
+            .toPath()));
+  }
+
+  @Test
+  public void testRegisterFile() throws IOException {
+    final File lib = folder.newFolder("lib");
+    final File source = new File(lib, "ol.js");
+    write(source, "synth.pkg1", "Class1");
+    final File sub = new File(lib, "sub");
+    assertTrue(sub.mkdir());
+    final Controller controller = new Controller(
+        Collections.singletonList(source), folder.newFolder("output"));
+    final Watcher watcher =
+        new Watcher(controller, controller.createPrinter(OutputType.JSNI));
+    try (final WatchService watchService =
+        FileSystems.getDefault().newWatchService()) {
+      watcher.register(watchService, source);
+    }
+    final Path dir = lib.toPath().toAbsolutePath();
+    assertTrue("Source file watched",
+        watcher.isWatched(dir, Paths.get("ol.js")));
+    assertFalse("Other file in directory not watched",
+        watcher.isWatched(dir, Paths.get("other.js")));
+    assertFalse("Subdirectory not watched", watcher.isWatched(
+        sub.toPath().toAbsolutePath(), Paths.get("ol.js")));
+  }
+
+  private static void write(final File file, final String packageName,
+      final String className) throws IOException {
+    try (final Writer writer = new FileWriter(file)) {
+      writer.append(SyntheticSources.generate(packageName, className, 3,
+          new Random(3)));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import gruifo.lang.js.JsElement;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+import gruifo.lang.js.JsParam;
+import gruifo.lang.js.JsType;
+import gruifo.parser.ParsedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link ParseCache}.
+ */
+public class ParseCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final ParsedFile parsedFile = new ParsedFile();
+    final JsFile jsFile = new JsFile("a.js", "ol", "Map", false);
+    final JsElement element = new JsElement();
+    element.setConstructor();
+    element.setProtected();
+    element.setJsDoc("doc");
+    final JsType type = new JsType("number", "number|undefined", false, false,
+        false, false, true, Arrays.asList(new JsType("number")), null);
+    element.setType(type);
+    jsFile.setElement(element);
+    jsFile.addEnumValue("A", "a");
+    final JsMethod method = new JsMethod("ol.Map", "getView");
+    method.setStaticMethod(true);
+    method.setElement(new JsElement());
+    jsFile.addMethod(method);
+    final JsParam param = new JsParam();
+    param.setName("p");
+    param.setType(type);
+    jsFile.addField(param);
+    parsedFile.getJsFiles().add(jsFile);
+    parsedFile.getStaticMethods().add(method);
+    parsedFile.getStaticConsts().put("ol.A", element);
+
+    final ParsedFile read = ParseCache.read(ParseCache.write(parsedFile));
+    final JsFile readFile = read.getJsFiles().get(0);
+    assertEquals("Map", readFile.getClassOrInterfaceName());
+    assertEquals("a.js", readFile.getOriginalFileName());
+    assertTrue(readFile.getElement().isConstructor());
+    assertTrue(readFile.getElement().isProtected());
+    assertEquals("doc", readFile.getElement().getJsDoc());
+    assertEquals("A", readFile.getEnumValues().get(0).getFieldName());
+    final JsType readType = readFile.getElement().getType();
+    assertEquals("number|undefined", readType.getRawType());
+    assertTrue(readType.isOptional());
+    assertEquals("number", readType.getChoices().get(0).getRawType());
+    assertSame("Shared type", readType, readFile.getFields().get(0).getType());
+    assertSame("Shared method", readFile.getMethods().get(0),
+        read.getStaticMethods().get(0));
+    assertTrue(read.getStaticMethods().get(0).isStaticMethod());
+    assertSame("Shared element", readFile.getElement(),
+        read.getStaticConsts().get("ol.A"));
+  }
+
+  @Test
+  public void testKeyIncludesCharset() throws IOException {
+    final File file = folder.newFile("a.js");
+    assertEquals(ParseCache.getKey(file, StandardCharsets.UTF_8),
+        ParseCache.getKey(file, StandardCharsets.UTF_8));
+    assertNotEquals(ParseCache.getKey(file, StandardCharsets.UTF_8),
+        ParseCache.getKey(file, StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  public void testCorruptEntry() throws IOException {
+    final File dir = folder.newFolder("cache");
+    final ParseCache cache = new ParseCache(dir, Long.MAX_VALUE);
+    cache.put("key", new ParsedFile());
+    assertNotNull(cache.get("key"));
+    Files.write(new File(dir, "key.bin").toPath(), new byte[] {1, 2, 3});
+    assertNull("Corrupt entry is a miss", cache.get("key"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws IOException {
+    final File dir = folder.newFolder("cache");
+    final ParsedFile parsedFile = new ParsedFile();
+    parsedFile.getJsFiles().add(new JsFile("a.js", "ol", "Map", false));
+    final long entrySize = ParseCache.write(parsedFile).length;
+    final ParseCache cache = new ParseCache(dir, entrySize * 3);
+    cache.put("a", parsedFile);
+    cache.put("b", parsedFile);
+    cache.put("c", parsedFile);
+    new File(dir, "a.bin").setLastModified(1000000000000L);
+    new File(dir, "b.bin").setLastModified(1000000000000L - 1000);
+    new File(dir, "c.bin").setLastModified(1000000000000L + 1000);
+    cache.put("d", parsedFile);
+    assertNull("Least recently used evicted", cache.get("b"));
+    assertNull("Evicted until 75% of max size", cache.get("a"));
+    assertNotNull(cache.get("c"));
+    assertNotNull(cache.get("d"));
+    assertEquals(entrySize * 2, cache.getSize());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import gruifo.metrics.Metrics.Counter;
+import gruifo.metrics.Metrics.Phase;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Metrics}.
+ */
+public class MetricsTest {
+
+  @Test
+  public void testTotalsAndFiles() {
+    final Metrics metrics = createMetrics();
+    assertEquals(30, metrics.getTime(Phase.PARSE));
+    assertEquals(5, metrics.getTime(Phase.SCAN));
+    assertEquals(3, metrics.getCount(Counter.FILES_PARSED));
+    assertEquals(2, metrics.getFiles().size());
+    assertEquals("b.js", metrics.getFiles().keySet().iterator().next());
+    assertEquals(2, metrics.getFiles().get("c.js")
+        .getCount(Counter.FILES_PARSED));
+    assertEquals("Transform is part of print", 20,
+        metrics.getFiles().get("c.js").getTotalTime());
+  }
+
+  @Test
+  public void testSummary() {
+    final Metrics metrics = new Metrics();
+    metrics.setWallTime(TimeUnit.MILLISECONDS.toNanos(12));
+    metrics.addTime(Phase.PRINT, "a.js", TimeUnit.MILLISECONDS.toNanos(7));
+    final String summary = metrics.getSummary();
+    assertTrue(summary, summary.startsWith("Run took 12 ms"));
+    assertTrue(summary, summary.contains("\n  print: 7 ms"));
+    assertTrue(summary, summary.contains("\n    a.js: 7 ms"));
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    final Metrics metrics = createMetrics();
+    metrics.addTime(Phase.PARSE, "d\"\\\n.js", 1);
+    final StringBuilder json = new StringBuilder();
+    metrics.writeJson(json);
+    final String text = json.toString();
+    assertTrue(text, text.startsWith("{\n  \"wallTime\": 100,\n  \"totals\": {"
+        + "\"scan\": 5, \"parse\": 31,"));
+    assertTrue(text, text.contains("\n    \"c.js\": {\"scan\": 0,"
+        + " \"parse\": 20, \"jsdoc\": 0, \"transform\": 4, \"print\": 0,"
+        + " \"write\": 0, \"files_scanned\": 0, \"files_parsed\": 2,"));
+    assertTrue(text, text.contains("\"d\\\"\\\\\\u000a.js\": {"));
+    assertTrue(text, text.endsWith("}\n  }\n}\n"));
+  }
+
+  @Test
+  public void testEmptyJson() throws IOException {
+    final StringBuilder json = new StringBuilder();
+    new Metrics().writeJson(json);
+    assertTrue(json.toString(), json.toString().endsWith("\"files\": {}\n}\n"));
+  }
+
+  private static Metrics createMetrics() {
+    final Metrics metrics = new Metrics();
+    metrics.setWallTime(100);
+    metrics.addTime(Phase.SCAN, null, 5);
+    metrics.addTime(Phase.PARSE, "c.js", 20);
+    metrics.addTime(Phase.TRANSFORM, "c.js", 4);
+    metrics.addTime(Phase.PARSE, "b.js", 10);
+    metrics.add(Counter.FILES_PARSED, "c.js", 1);
+    metrics.add(Counter.FILES_PARSED, "c.js", 1);
+    metrics.add(Counter.FILES_PARSED, "b.js", 1);
+    return metrics;
+  }
+}
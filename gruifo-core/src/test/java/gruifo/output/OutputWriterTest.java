@@ -0,0 +1,107 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import gruifo.lang.js.JsFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link OutputWriter}.
+ */
+public class OutputWriterTest {
+
+  private static final long OLD_TIME = 1000000000000L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Map<JsFile, String> contents = new HashMap<>();
+  private final FilePrinter printer = new FilePrinter() {
+    @Override
+    public void printFile(final JsFile javaFile, final Appendable out)
+        throws IOException {
+      out.append(contents.get(javaFile));
+    }
+
+    @Override
+    public boolean ignored(final JsFile jsFile) {
+      return false;
+    }
+  };
+
+  @Test
+  public void testSkipUnchanged() throws IOException {
+    final File outputPath = folder.getRoot();
+    final JsFile same = new JsFile("same.js", "a.b", "Same", false);
+    final JsFile changed = new JsFile("changed.js", "a.b", "Changed", false);
+    contents.put(same, "class Same { String s = \"\u00e9\"; }");
+    contents.put(changed, "class Changed {}");
+    write(outputPath, same, changed);
+    final File sameFile = new File(outputPath, "a/b/Same.java");
+    final File changedFile = new File(outputPath, "a/b/Changed.java");
+    sameFile.setLastModified(OLD_TIME);
+    changedFile.setLastModified(OLD_TIME);
+
+    contents.put(changed, "class Changed { int i; }");
+    write(outputPath, same, changed);
+    assertEquals("Unchanged file not written", OLD_TIME,
+        sameFile.lastModified());
+    assertArrayEquals("Changed file written",
+        contents.get(changed).getBytes(StandardCharsets.UTF_8),
+        Files.readAllBytes(changedFile.toPath()));
+    assertEquals("No temporary files left", 2,
+        sameFile.getParentFile().list().length);
+  }
+
+  @Test
+  public void testDefaultPermissions() throws IOException {
+    final File outputPath = folder.getRoot();
+    final Path reference = Files.createFile(folder.newFolder("ref").toPath()
+        .resolve("Reference.java"));
+    assumeTrue(Files.getFileStore(reference)
+        .supportsFileAttributeView(PosixFileAttributeView.class));
+    final JsFile jsFile = new JsFile("a.js", "a", "A", false);
+    contents.put(jsFile, "class A {}");
+    write(outputPath, jsFile);
+    assertEquals("Same permissions as a new file",
+        Files.getPosixFilePermissions(reference),
+        Files.getPosixFilePermissions(
+            new File(outputPath, "a/A.java").toPath()));
+  }
+
+  private void write(final File outputPath, final JsFile... jsFiles) {
+    final OutputWriter writer = new OutputWriter(printer, outputPath, 1);
+    writer.setSkipUnchanged(true);
+    writer.writeFiles(Arrays.asList(jsFiles));
+  }
+}
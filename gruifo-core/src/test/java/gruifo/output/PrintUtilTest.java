@@ -0,0 +1,88 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link PrintUtil} and {@link CodeWriter}.
+ */
+public class PrintUtilTest {
+
+  private static final String[] TEXTS = {"", "a", "\n", "\n\n", "a\n",
+    "a\n\n", "\na", "a\nb", "a\n\nb\n", " * a\n * b\n */"};
+
+  @Test
+  public void testIndentText() throws IOException {
+    for (final String text : TEXTS) {
+      for (int indent = 0; indent < 3; indent++) {
+        final StringBuilder builder = new StringBuilder();
+        PrintUtil.indent(builder, text, indent);
+        assertEquals("Text '" + text + "'", split(text, indent),
+            builder.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testIndentDeep() throws IOException {
+    for (final int indent : new int[] {0, 1, 31, 32, 40}) {
+      final StringBuilder builder = new StringBuilder();
+      PrintUtil.indent(builder, indent);
+      assertEquals(new String(new char[indent * 2]).replace('\0', ' '),
+          builder.toString());
+      builder.setLength(0);
+      PrintUtil.nl(builder, indent);
+      assertEquals(new String(new char[indent]).replace('\0', '\n'),
+          builder.toString());
+    }
+  }
+
+  @Test
+  public void testCodeWriter() throws IOException {
+    final StringBuilder builder = new StringBuilder();
+    final CodeWriter writer = new CodeWriter(builder);
+    writer.indent().append("class A {").nl();
+    writer.indentIn().lines("/**\n * doc\n */");
+    writer.indent().append("int a;").nl2();
+    writer.indentOut().indent().append('}').nl();
+    assertEquals("class A {\n  /**\n   * doc\n   */\n  int a;\n\n}\n",
+        builder.toString());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCodeWriterIndentOut() {
+    new CodeWriter(new StringBuilder()).indentOut();
+  }
+
+  /**
+   * Previous implementation of {@link PrintUtil#indent(Appendable, String,
+   * int)}.
+   */
+  private static String split(final String text, final int indent) {
+    final StringBuilder builder = new StringBuilder();
+    for (final String row : text.split("\n")) {
+      builder.append(new String(new char[indent * 2]).replace('\0', ' '));
+      builder.append(row);
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output.jsni;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import gruifo.lang.java.JParam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Overloads}.
+ */
+public class OverloadsTest {
+
+  @Test
+  public void testChoices() {
+    final Overloads overloads = new Overloads();
+    overloads.addParam(params("a", "A", "B"));
+    overloads.addParam(params("b", "C", "D"));
+    overloads.endOverload();
+    assertEquals(4, overloads.count(Long.MAX_VALUE));
+    assertOverloads(overloads, "A C", "B C", "A D", "B D");
+  }
+
+  /**
+   * A union of 3 choices after a union of 2 choices. The nested list
+   * expansion used before {@link Overloads} repeated A D and B E, and missed
+   * A E and B D.
+   */
+  @Test
+  public void testThreeChoicesAfterTwoChoices() {
+    final Overloads overloads = new Overloads();
+    overloads.addParam(params("a", "A", "B"));
+    overloads.addParam(params("b", "C", "D", "E"));
+    overloads.endOverload();
+    assertEquals(6, overloads.count(Long.MAX_VALUE));
+    assertOverloads(overloads, "A C", "B C", "A D", "B D", "A E", "B E");
+    final Set<List<JParam>> unique = new HashSet<>();
+    for (final List<JParam> params : overloads) {
+      assertTrue("Duplicate overload " + params, unique.add(params));
+    }
+  }
+
+  @Test
+  public void testOptional() {
+    final Overloads overloads = new Overloads();
+    overloads.endOverload();
+    overloads.addParam(params("a", "A", "B"));
+    overloads.addParam(params("b", "C"));
+    overloads.endOverload();
+    overloads.addParam(params("c", "E", "F"));
+    overloads.endOverload();
+    assertEquals(7, overloads.count(Long.MAX_VALUE));
+    assertOverloads(overloads, "", "A C", "B C", "A C E", "B C E", "A C F",
+        "B C F");
+  }
+
+  @Test
+  public void testCountStopsAtMax() {
+    final Overloads overloads = new Overloads();
+    for (int i = 0; i < 100; i++) {
+      overloads.addParam(params("p" + i, "A", "B", "C"));
+    }
+    overloads.endOverload();
+    assertEquals("Count stops before overflow", 81, overloads.count(64));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoAlternatives() {
+    new Overloads().addParam(new ArrayList<JParam>());
+  }
+
+  private static List<JParam> params(final String name, final String... types) {
+    final List<JParam> params = new ArrayList<>();
+    for (final String type : types) {
+      params.add(new JParam(name, type));
+    }
+    return params;
+  }
+
+  private static void assertOverloads(final Overloads overloads,
+      final String... expected) {
+    final Iterator<List<JParam>> iterator = overloads.iterator();
+    for (final String types : expected) {
+      final List<String> actual = new ArrayList<>();
+      for (final JParam param : iterator.next()) {
+        actual.add(param.getType());
+      }
+      assertEquals(types.isEmpty() ? new ArrayList<String>()
+          : Arrays.asList(types.split(" ")), actual);
+    }
+    assertFalse(iterator.hasNext());
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output.jsni;
+
+import static org.junit.Assert.assertEquals;
+import gruifo.lang.java.JClass;
+import gruifo.lang.java.JMethod;
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+import gruifo.parser.JavaScriptDocParser;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link Transformer}.
+ */
+public class TransformerTest {
+
+  private static final String CLASS_DOC = "/**\n * @constructor\n */";
+  /**
+   * Method with 3 + 3 = 6 overloads.
+   */
+  private static final String METHOD_DOC = "/**\n"
+      + " * @param {number|string|boolean} a A.\n"
+      + " * @param {number=} opt_b B.\n"
+      + " */";
+
+  /**
+   * Method with 2 overloads with the same erased signature.
+   */
+  private static final String DUPLICATE_DOC = "/**\n"
+      + " * @param {Array.<ol.Map>|Array.<ol.View>} a A.\n"
+      + " */";
+
+  private final JavaScriptDocParser docParser = new JavaScriptDocParser();
+
+  @Test
+  public void testOverloadsWithinMax() {
+    final Transformer transformer = new Transformer();
+    transformer.setMaxOverloads(6);
+    final JClass jClass = transformer.transform(createFile());
+    assertEquals(6, jClass.getMethods().size());
+    assertEquals("Double", jClass.getMethods().get(0).getParams().get(0)
+        .getType());
+  }
+
+  @Test
+  public void testOverloadsExceedMax() {
+    final Transformer transformer = new Transformer();
+    transformer.setMaxOverloads(5);
+    final JClass jClass = transformer.transform(createFile());
+    assertEquals("One method per optional parameter", 2,
+        jClass.getMethods().size());
+    for (final JMethod method : jClass.getMethods()) {
+      assertEquals(TypeMapper.GWT_JAVA_SCRIPT_OBJECT,
+          method.getParams().get(0).getType());
+    }
+    assertEquals("double",
+        jClass.getMethods().get(1).getParams().get(1).getType());
+  }
+
+  @Test
+  public void testDuplicateSignatures() {
+    final JsFile jsFile = createFile();
+    final JsMethod method = new JsMethod("a.A", "g");
+    method.setElement(docParser.parse("a.js", DUPLICATE_DOC));
+    jsFile.addMethod(method);
+    final JClass jClass = new Transformer().transform(jsFile);
+    assertEquals("6 methods f and 1 method g", 7, jClass.getMethods().size());
+    final JMethod g = jClass.getMethods().get(6);
+    assertEquals("g", g.getMethodName());
+    assertEquals("First method kept",
+        "com.google.gwt.core.client.JsArray<ol.Map>",
+        g.getParams().get(0).getType());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMax() {
+    new Transformer().setMaxOverloads(0);
+  }
+
+  private JsFile createFile() {
+    final JsFile jsFile = new JsFile("a.js", "a", "A", false);
+    jsFile.setElement(docParser.parse("a.js", CLASS_DOC));
+    final JsMethod method = new JsMethod("a.A", "f");
+    method.setElement(docParser.parse("a.js", METHOD_DOC));
+    jsFile.addMethod(method);
+    return jsFile;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.output.jsni;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link TypeMapper}.
+ */
+public class TypeMapperTest {
+
+  @Test
+  public void testDefaultMappings() {
+    final TypeMapper typeMapper = new TypeMapper();
+    assertEquals("double", typeMapper.mapType("number"));
+    assertEquals("Double", typeMapper.mapType("number", true));
+    assertEquals(TypeMapper.GWT_JAVA_SCRIPT_OBJECT, typeMapper.mapType("*"));
+    assertEquals("ol.Map", typeMapper.mapType("ol.Map", true));
+    assertTrue(typeMapper.isPrimitive("boolean"));
+  }
+
+  @Test
+  public void testMappings() {
+    final Properties props = new Properties();
+    props.put("ol.Pixel", "ol.gwt.Pixel");
+    props.put("double", "ol.gwt.Double");
+    props.put("-ol.Ignored", "");
+    props.put("&ol.Map$center", "ol.Coordinate");
+    final TypeMapper typeMapper = new TypeMapper(props);
+    assertEquals("ol.gwt.Pixel", typeMapper.mapType("ol.Pixel"));
+    assertEquals("Primitive mapped again", "ol.gwt.Double",
+        typeMapper.mapType("number"));
+    assertEquals("Double", typeMapper.mapType("number", true));
+    assertTrue(typeMapper.ignore("ol.Ignored"));
+    assertEquals("ol.Coordinate", typeMapper.replaceType("ol.Map", "center"));
+  }
+
+  @Test
+  public void testInstancesIndependent() {
+    final Properties props = new Properties();
+    props.put("ol.Pixel", "ol.gwt.Pixel");
+    props.put("-ol.Ignored", "");
+    new TypeMapper(props);
+    final TypeMapper typeMapper = new TypeMapper();
+    assertEquals("ol.Pixel", typeMapper.mapType("ol.Pixel"));
+    assertFalse(typeMapper.ignore("ol.Ignored"));
+  }
+}
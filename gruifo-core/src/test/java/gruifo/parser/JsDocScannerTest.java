@@ -0,0 +1,131 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link JsDocScanner}. Compares the scanner with the regular
+ * expressions it replaces on random input.
+ */
+public class JsDocScannerTest {
+
+  private static final Pattern ANNOTATION_PATTERN =
+      Pattern.compile("@([^ ]+) ?.*");
+  private static final Pattern COMMENT_PATTERN =
+      Pattern.compile("^ *\\* *([^@]+)");
+  private static final Pattern PARAM_PATTERN =
+      Pattern.compile("\\{([^\\}]+)\\} +([^ ]+)");
+  private static final Pattern TEMPLATE_PATTERN =
+      Pattern.compile("@template +([^ ]+)");
+  private static final Pattern TYPE_PATTERN =
+      Pattern.compile("\\{([^\\}]+)\\}");
+
+  private static final Pattern TYPEDEF_PATTERN =
+      Pattern.compile("\\{\\{(.*)\\}\\}");
+
+  private static final String[] TOKENS = {" ", " ", " ", "*", "@", "{", "}",
+    "\t", "\r", "\n", "\r\n", "a", "b.C", "@param", "@template", "@type",
+    "{number}", "|", "=", "@@", "{{", "}}", "\u2028"};
+  private static final int RUNS = 20000;
+
+  @Test
+  public void testLines() {
+    final Random random = new Random(1);
+    for (int run = 0; run < RUNS; run++) {
+      final String comment = randomString(random);
+      final String[] expected = comment.split("\\r?\\n");
+      final int[] lines = JsDocScanner.lines(comment);
+      final String[] actual = new String[lines.length / 2];
+      for (int i = 0; i < actual.length; i++) {
+        actual[i] = comment.substring(lines[i * 2], lines[i * 2 + 1]);
+      }
+      assertArrayEquals("Lines of '" + comment + "'", expected, actual);
+    }
+  }
+
+  @Test
+  public void testSameAsPatterns() {
+    final Random random = new Random(2);
+    for (int run = 0; run < RUNS; run++) {
+      final String prefix = randomLine(random);
+      final String line = randomLine(random);
+      final String s = prefix + line + randomString(random);
+      final int start = prefix.length();
+      final int end = start + line.length();
+      final String message = "Line '" + line + "'";
+
+      Matcher matcher = ANNOTATION_PATTERN.matcher(line);
+      final int annotation = JsDocScanner.findAnnotation(s, start, end);
+      assertEquals(message, matcher.find() ? matcher.group(1) : null,
+          annotation < 0 ? null : s.substring(annotation,
+              JsDocScanner.wordEnd(s, annotation, end)));
+
+      matcher = TYPE_PATTERN.matcher(line);
+      final int type = JsDocScanner.findType(s, start, end);
+      assertEquals(message, matcher.find() ? matcher.group(1).trim() : null,
+          type < 0 ? null
+              : JsDocScanner.trim(s, type, JsDocScanner.typeEnd(s, type, end)));
+
+      matcher = PARAM_PATTERN.matcher(line);
+      final int param = JsDocScanner.findParam(s, start, end);
+      if (matcher.find()) {
+        final int typeEnd = JsDocScanner.typeEnd(s, param, end);
+        final int name = JsDocScanner.skipSpaces(s, typeEnd + 1, end);
+        assertEquals(message, matcher.group(1).trim(),
+            JsDocScanner.trim(s, param, typeEnd));
+        assertEquals(message, matcher.group(2).trim(),
+            JsDocScanner.trim(s, name, JsDocScanner.wordEnd(s, name, end)));
+      } else {
+        assertEquals(message, -1, param);
+      }
+
+      matcher = COMMENT_PATTERN.matcher(line);
+      assertEquals(message, matcher.find() ? matcher.group(1) : "",
+          JsDocScanner.commentText(s, start, end));
+
+      assertEquals(message, line.replaceFirst("^ +\\*", "").replace(" ", ""),
+          JsDocScanner.stripComment(line));
+
+      matcher = TYPEDEF_PATTERN.matcher(s);
+      assertEquals(message, matcher.find() ? matcher.group(1) : "",
+          JsDocScanner.between(s, "{{", "}}"));
+
+      matcher = TEMPLATE_PATTERN.matcher(line);
+      assertEquals(message, matcher.find() ? matcher.group(1).trim() : "",
+          JsDocScanner.findTemplate(s, start, end));
+    }
+  }
+
+  private static String randomLine(final Random random) {
+    return randomString(random).replace('\n', ' ');
+  }
+
+  private static String randomString(final Random random) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = random.nextInt(12); i > 0; i--) {
+      sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+    }
+    return sb.toString();
+  }
+}
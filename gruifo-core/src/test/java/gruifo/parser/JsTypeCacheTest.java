@@ -0,0 +1,71 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import gruifo.lang.js.JsType;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link JsTypeCache}.
+ */
+public class JsTypeCacheTest {
+
+  private static final String[] TYPES = {"number", "?string",
+    "Array.<number>|undefined", "function(ol.Map, number=): boolean",
+    "Object.<string, (number|Array.<string>)>", "...*", "!ol.Coordinate"};
+
+  @Test
+  public void testSameInstance() {
+    final JsTypeCache cache = new JsTypeCache();
+    final JsTypeParser parser = new JsTypeParser(cache);
+    final JsType first = parser.parseType("Array.<number>|undefined");
+    assertSame(first, parser.parseType("Array.<number>|undefined"));
+    assertSame("Cache shared between parsers", first,
+        new JsTypeParser(cache).parseType("Array.<number>|undefined"));
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSameAsUncached() {
+    final JsTypeParser cached = new JsTypeParser(new JsTypeCache());
+    final JsTypeParser uncached = new JsTypeParser();
+    for (int i = 0; i < 2; i++) {
+      for (final String type : TYPES) {
+        assertEquals(type, uncached.parseType(type), cached.parseType(type));
+      }
+    }
+  }
+
+  @Test
+  public void testBounded() {
+    final JsTypeCache cache = new JsTypeCache(2);
+    final JsTypeParser parser = new JsTypeParser(cache);
+    for (final String type : TYPES) {
+      parser.parseType(type);
+    }
+    assertEquals(2, cache.size());
+    assertNotSame("Not cached when full", parser.parseType(TYPES[3]),
+        parser.parseType(TYPES[3]));
+    assertSame("Cached before full", parser.parseType(TYPES[0]),
+        parser.parseType(TYPES[0]));
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import gruifo.lang.js.JsType;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link JsTypeParser}. Types are compared with the types
+ * parsed by {@link LegacyJsTypeParser}, for well formed types generated with a
+ * small grammar and for random sequences of type fragments.
+ */
+public class JsTypeParserTest {
+
+  private static final String[] NAMES = {"number", "string", "boolean", "*",
+    "ol.Map", "ol.Coordinate", "ol.proj.ProjectionLike", "Object", "Array",
+    "Element", "null", "undefined", "foo", "ol.format.filter"};
+
+  private static final String[] FRAGMENTS = {"function(", "function", "f", "(",
+    ")", ".<", "<", ">", "|", "!", "?", "=", "...", ".", ",", " ", ":", "null",
+    "undefined", "ol.Map", "Array", "Object", "number", "this:", "new:"};
+
+  private static final int ITERATIONS = 20000;
+
+  private final JsTypeParser parser = new JsTypeParser();
+  private final LegacyJsTypeParser legacyParser = new LegacyJsTypeParser();
+
+  @Test
+  public void testTypes() {
+    assertTrue("Function", parser.parseType("function(number)").isFunction());
+    final JsType undefined = parser.parseType("(number|string|undefined)");
+    assertTrue("Undefined", undefined.isCanNull());
+    assertEquals(2, undefined.getChoices().size());
+    final JsType generic = parser.parseType("!Array.<ol.Map|string>");
+    assertEquals("Array", generic.getName());
+    assertTrue("Not null", generic.isNotNull());
+    assertEquals(2, generic.getTypeList().get(0).getChoices().size());
+    final JsType optional = parser.parseType("?ol.Map=");
+    assertTrue("Optional", optional.isOptional());
+    assertFalse("Function name isn't function", parser.parseType(
+        "ol.format.filter").isFunction());
+  }
+
+  @Test
+  public void testSameAsLegacyForGeneratedTypes() {
+    final Random random = new Random(25);
+    for (int i = 0; i < ITERATIONS; i++) {
+      final StringBuilder rawType = new StringBuilder();
+      appendType(rawType, random, 3);
+      assertSameType(rawType.toString());
+    }
+  }
+
+  @Test
+  public void testSameAsLegacyForRandomFragments() {
+    final Random random = new Random(25);
+    for (int i = 0; i < ITERATIONS; i++) {
+      final StringBuilder rawType = new StringBuilder();
+      final int fragments = 1 + random.nextInt(12);
+      for (int j = 0; j < fragments; j++) {
+        rawType.append(random.nextBoolean()
+            ? FRAGMENTS[random.nextInt(FRAGMENTS.length)]
+            : NAMES[random.nextInt(NAMES.length)]);
+      }
+      assertSameType(rawType.toString());
+    }
+  }
+
+  private void appendType(final StringBuilder sb, final Random random,
+      final int depth) {
+    final int choices = random.nextInt(4) == 0 ? 2 + random.nextInt(2) : 1;
+    final boolean parentheses = choices > 1 && random.nextBoolean();
+    if (parentheses) {
+      sb.append('(');
+    }
+    for (int i = 0; i < choices; i++) {
+      if (i > 0) {
+        sb.append('|');
+      }
+      appendSingleType(sb, random, depth);
+    }
+    if (parentheses) {
+      sb.append(')');
+    }
+    if (random.nextInt(5) == 0) {
+      sb.append('=');
+    }
+  }
+
+  private void appendSingleType(final StringBuilder sb, final Random random,
+      final int depth) {
+    final int kind = depth == 0 ? 0 : random.nextInt(4);
+    if (kind < 2 || kind == 3 && random.nextBoolean()) {
+      sb.append(random.nextInt(4) == 0 ? "!" : random.nextInt(4) == 0 ? "?"
+          : "");
+    }
+    switch (kind) {
+    case 2:
+      sb.append("function(");
+      final int params = random.nextInt(3);
+      for (int i = 0; i < params; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        if (random.nextInt(6) == 0) {
+          sb.append("...");
+        }
+        appendType(sb, random, depth - 1);
+      }
+      sb.append(')');
+      if (random.nextBoolean()) {
+        sb.append(": ");
+        appendType(sb, random, depth - 1);
+      }
+      break;
+    case 3:
+      sb.append(random.nextBoolean() ? "Array" : "Object").append(".<");
+      if (random.nextBoolean()) {
+        sb.append("string, ");
+      }
+      appendType(sb, random, depth - 1);
+      sb.append('>');
+      break;
+    default:
+      sb.append(NAMES[random.nextInt(NAMES.length)]);
+      break;
+    }
+  }
+
+  private void assertSameType(final String rawType) {
+    JsType expected = null;
+    RuntimeException expectedException = null;
+    try {
+      expected = legacyParser.parseType(rawType);
+    } catch (final RuntimeException e) {
+      expectedException = e;
+    }
+    try {
+      assertEquals("Type of: " + rawType, expected, parser.parseType(rawType));
+      assertNull("Exception expected for: " + rawType, expectedException);
+    } catch (final IndexOutOfBoundsException e) {
+      assertTrue("Unexpected exception for: " + rawType + ": " + e,
+          expectedException instanceof IndexOutOfBoundsException);
+    }
+  }
+}
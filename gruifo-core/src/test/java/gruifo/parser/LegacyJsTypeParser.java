@@ -0,0 +1,209 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import gruifo.lang.js.JsType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The implementation of {@link JsTypeParser} before it scanned the type
+ * without copying substrings, kept to test the current implementation gives
+ * the same types.
+ */
+class LegacyJsTypeParser {
+
+  private static final String FUNCTION = "function(";
+
+  public JsType parseType(final String rawType) {
+    return parse(rawType);
+  }
+
+  private JsType parse(final String rawType) {
+    return typeParser(replaceRawType(stripParentheses(rawType)));
+  }
+
+  private String stripParentheses(final String type) {
+    String strippedType;
+    if (type.isEmpty()) {
+      strippedType = type;
+    } else {
+      final int beginIndex = type.charAt(0) == '(' ? 1 : 0;
+      final int length = type.length();
+      final int endIndex = length - (type.charAt(length - 1) == ')' ? 1 : 0);
+      strippedType = type.substring(beginIndex, endIndex);
+    }
+    return strippedType;
+  }
+
+  private String replaceRawType(final String rawType) {
+    //FIXME don't hardcode ol.proj.ProjectionLike, but read from configuration
+    return rawType.replace("ol.proj.ProjectionLike",
+        "ol.proj.Projection|string|undefined");
+  }
+
+  private JsType typeParser(final String rawType) {
+    final char[] chars = rawType.toCharArray();
+    final JsType root;
+    final List<JsType> types = typeParser(rawType, chars, new AtomicInteger());
+    if (types.size() == 1) {
+      root = types.get(0);
+    } else {
+      root = new JsType(null, rawType, false, false, false, false, false, types,
+          null);
+    }
+    return root;
+  }
+
+  private List<JsType> typeParser(final String rawType, final char[] chars,
+      final AtomicInteger idx) {
+    int startPos = idx.get();
+    int startPosChoices = startPos;
+    int nameEndPos = startPos;
+    int parentheses = 0;
+    int endPos;
+    boolean notNull = false, canNull = false, optional = false, varArgs = false,
+        newType = false, decreaseDepth = false, inFunction = false,
+        endFunction = false, param = false;
+    final List<JsType> types = new ArrayList<>();
+    final List<JsType> choices = new ArrayList<>();
+    List<JsType> subTypes = null;
+    for (; idx.get() < chars.length; idx.incrementAndGet()) {
+      final int i = idx.get();
+      endPos = i;
+      switch (chars[i]) {
+      case 'f':
+        if (rawType.substring(i).startsWith(FUNCTION)) {
+          inFunction = true;
+          parentheses++;
+        }
+        break;
+      case '(':
+        parentheses++;
+        break;
+      case ')':
+        parentheses--;
+        endFunction = parentheses == 0;
+        break;
+      case ' ':
+        if (startPos == endPos) {
+          startPos++;
+        } else {
+          newType = true;
+          endPos--;
+        }
+        break;
+      case '.': // generic or varargs .... varargs before
+        if (chars[i+1] == '<') {
+          endPos--;
+          nameEndPos = endPos;
+          idx.incrementAndGet(); // skip past '<'
+          idx.incrementAndGet();
+          subTypes = typeParser(rawType, chars, idx);
+          endPos = idx.get();
+        } else if (chars[i+1] == '.' && (chars[i+2] == '.')) {
+          varArgs = true;
+          idx.addAndGet(2); // skip ...
+          startPos = i + 3;
+        }
+        break;
+      case ',':
+        // set inFunction to false  when we passed the end of the function,
+        // But ONLY when inFunction is already true
+        inFunction = inFunction && !endFunction;
+        param = true;
+        newType = true;
+        endPos--;
+        break;
+      case '<':
+        // should not happen...
+        break;
+      case '>':
+        decreaseDepth = true;
+        newType = true;
+        endPos--;
+        break;
+      case '|': // new choice argument
+        newType = true;
+        endPos--;
+        break;
+      case '!': // argument can't be null. !  is positioned before type
+        notNull = true;
+        startPos++;
+        break;
+      case '?': // argument can be null. ? is positioned before type
+        if (startPos == endPos) {
+          canNull = true;
+          startPos++;
+        }
+        break;
+      case '=': // optional argument. = is positioned after type
+        optional = true;
+        endPos--;
+        // is last so we can finish type
+        break;
+      default:
+        break;
+      }
+      if (subTypes == null) {
+        nameEndPos = endPos;
+      }
+      boolean lastToken = idx.get() == chars.length - 1;
+      if ((!inFunction && newType) || lastToken) {
+        final String sType = rawType.substring(startPos, endPos + 1);
+        final String name = rawType.substring(startPos, nameEndPos + 1);
+        boolean withNull = false;
+        if ("undefined".equals(sType) || "null".equals(sType)) {
+          withNull = true;
+        } else {
+          choices.add(new JsType(name, sType, sType.startsWith(FUNCTION),
+              varArgs, notNull, canNull, optional, null, subTypes));
+        }
+        lastToken = idx.get() == chars.length - 1;
+        if (param || decreaseDepth || lastToken) {
+          if (choices.size() == 1) {
+            types.add(choices.get(0).withNull(withNull));
+          } else {
+            types.add(new JsType(null,
+                rawType.substring(startPosChoices, endPos + 1), false, false,
+                false, withNull, false, choices, null));
+          }
+          choices.clear();
+          if (decreaseDepth || lastToken) {
+            return types;
+          }
+          if (param) {
+            startPosChoices = i + 1;
+          }
+        }
+        startPos = idx.get() + 1;
+        newType = false;
+        param = false;
+        varArgs = false;
+        notNull = false;
+        canNull = false;
+        optional = false;
+        inFunction = false;
+        endFunction = false;
+        decreaseDepth = false;
+        subTypes = null;
+      }
+    }
+    return types;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@link SourceReader}.
+ */
+public class SourceReaderTest {
+
+  private static final String CONTENT =
+      "/** @const {string} café € 😀 */\nvar a = 'b';\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testUtf8() throws IOException {
+    assertEquals(CONTENT, new SourceReader().read(
+        write(CONTENT, StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testCharset() throws IOException {
+    final String content = "var café = 'é';";
+    final File file = write(content, StandardCharsets.ISO_8859_1);
+    assertEquals(content,
+        new SourceReader(StandardCharsets.ISO_8859_1).read(file));
+    assertEquals("UTF-16 decodes to more chars than buffered", content,
+        new SourceReader(StandardCharsets.UTF_16).read(
+            write(content, StandardCharsets.UTF_16)));
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    assertEquals("", new SourceReader().read(folder.newFile()));
+  }
+
+  @Test
+  public void testMemoryMapped() throws IOException {
+    final StringBuilder content = new StringBuilder();
+    while (content.length() <= SourceReader.MAP_THRESHOLD) {
+      content.append(CONTENT);
+    }
+    final SourceReader reader = new SourceReader();
+    assertEquals(content.toString(),
+        reader.read(write(content.toString(), StandardCharsets.UTF_8)));
+    assertEquals("Pooled buffers reused after large file", CONTENT,
+        reader.read(write(CONTENT, StandardCharsets.UTF_8)));
+  }
+
+  private File write(final String content, final Charset charset)
+      throws IOException {
+    final File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes(charset));
+    return file;
+  }
+}
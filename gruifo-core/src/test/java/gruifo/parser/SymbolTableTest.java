@@ -0,0 +1,147 @@
+/*
+ * Copyright Hilbrand Bouwkamp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gruifo.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import gruifo.lang.js.JsFile;
+import gruifo.lang.js.JsMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SymbolTable}.
+ */
+public class SymbolTableTest {
+
+  private static final String CLASS_SOURCE = "/**\n"
+      + " * @constructor\n"
+      + " * @param {number} a\n"
+      + " */\n"
+      + "ol.A = function(a) {};\n"
+      + "\n"
+      + "/**\n"
+      + " * @param {number} b\n"
+      + " */\n"
+      + "ol.A.prototype.method = function(b) {};\n";
+
+  private static final String STATICS_SOURCE = "/**\n"
+      + " * @param {number} c\n"
+      + " * @return {ol.A}\n"
+      + " */\n"
+      + "ol.A.create = function(c) {};\n"
+      + "\n"
+      + "/**\n"
+      + " * @const\n"
+      + " * @type {number}\n"
+      + " */\n"
+      + "ol.A.SIZE = 1;\n"
+      + "\n"
+      + "/**\n"
+      + " * @param {number} d\n"
+      + " */\n"
+      + "ol.unknown.create = function(d) {};\n"
+      + "\n"
+      + "/**\n"
+      + " * @type {boolean}\n"
+      + " */\n"
+      + "ol.A.ENABLED = false;\n";
+
+  private final ParserFactory parserFactory = new ParserFactory();
+
+  @Test
+  public void testAttachAcrossFiles() {
+    final ParsedFile classFile = parse("a.js", CLASS_SOURCE);
+    final ParsedFile staticsFile = parse("b.js", STATICS_SOURCE);
+    final SymbolTable table = attach(classFile, staticsFile);
+    final JsFile jsFile = table.getType("ol.A");
+    assertEquals("Methods", Arrays.asList("A", "method", "create"),
+        getMethodNames(jsFile));
+    assertEquals("Constant", "ol.A.SIZE", jsFile.getFields().get(0).getName());
+    assertEquals("Missed methods", Arrays.asList("create", "ENABLED"),
+        getMethodNames(table.getMissedMethods()));
+    assertTrue("No missed constants", table.getMissedConsts().isEmpty());
+    assertEquals(Collections.singleton(jsFile), table.getChangedFiles(null));
+  }
+
+  @Test
+  public void testDetach() {
+    final ParsedFile classFile = parse("a.js", CLASS_SOURCE);
+    final ParsedFile staticsFile = parse("b.js", STATICS_SOURCE);
+    final SymbolTable table = attach(classFile, staticsFile);
+    final SymbolTable same = attach(classFile, staticsFile);
+    assertEquals("Attached only once", 3,
+        same.getType("ol.A").getMethods().size());
+    table.detach();
+    final SymbolTable again = attach(classFile, staticsFile);
+    assertTrue("Same statics attached", again.getChangedFiles(table).isEmpty());
+    again.detach();
+    final JsFile jsFile = classFile.getJsFiles().get(0);
+    assertEquals("Statics removed", Arrays.asList("A", "method"),
+        getMethodNames(jsFile));
+    assertTrue("Constant removed", jsFile.getFields().isEmpty());
+    final SymbolTable classOnly = attach(classFile);
+    assertEquals("Statics from other file removed",
+        Collections.singleton(jsFile), classOnly.getChangedFiles(again));
+  }
+
+  @Test
+  public void testDefinesAndUses() {
+    assertEquals(Collections.singleton("ol.A"),
+        SymbolTable.getDefines(parse("a.js", CLASS_SOURCE)));
+    assertEquals(Arrays.asList("ol.A", "ol.AConstants", "ol.unknown"),
+        new ArrayList<>(SymbolTable.getUses(parse("b.js", STATICS_SOURCE))));
+  }
+
+  private SymbolTable attach(final ParsedFile... parsedFiles) {
+    final SymbolTable table = new SymbolTable();
+    for (final ParsedFile parsedFile : parsedFiles) {
+      table.addFiles(parsedFile.getJsFiles());
+    }
+    for (final ParsedFile parsedFile : parsedFiles) {
+      table.attach(parsedFile);
+    }
+    return table;
+  }
+
+  private ParsedFile parse(final String fileName, final String source) {
+    final JavaScriptFileParser parser = new JavaScriptFileParser(fileName);
+    parserFactory.parse(source, fileName).visitAll(parser);
+    final ParsedFile parsedFile = new ParsedFile();
+    parsedFile.getJsFiles().addAll(parser.getFiles());
+    parsedFile.getStaticMethods().addAll(parser.getStaticMethods());
+    parsedFile.getStaticConsts().putAll(parser.getConsts());
+    return parsedFile;
+  }
+
+  private static List<String> getMethodNames(final JsFile jsFile) {
+    return getMethodNames(jsFile.getMethods());
+  }
+
+  private static List<String> getMethodNames(final List<JsMethod> methods) {
+    final List<String> names = new ArrayList<>();
+    for (final JsMethod method : methods) {
+      names.add(method.getMethodName());
+    }
+    return names;
+  }
+}
@@ -17,12 +17,17 @@ package gruifo.mojo;
 
 import gruifo.Controller;
 import gruifo.OutputType;
+import gruifo.cache.ParseCache;
+import gruifo.incremental.BuildStamp;
+import gruifo.incremental.IncrementalBuild;
 import gruifo.output.jsni.TypeMapper;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -37,6 +42,7 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  *
@@ -46,6 +52,7 @@ import org.apache.maven.project.MavenProject;
 public class GruifoMojo extends AbstractMojo {
 
   private static final String GEN_DIRECTORY = "gruifo";
+  private static final long MEGABYTE = 1024 * 1024;
 
   /**
    *
@@ -65,40 +72,177 @@ public class GruifoMojo extends AbstractMojo {
   @Parameter
   private String typeMapperFile;
 
+  /**
+   * Number of threads used to parse the JavaScript files and print the Java
+   * files. With 1 all files are processed sequentially.
+   */
+  @Parameter(defaultValue = "1")
+  private int threads;
+
+  /**
+   * Only generate Java files for JavaScript files changed since the previous
+   * build. A manifest of the previous build is kept in the output directory.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean incremental;
+
+  /**
+   * Don't write Java files with the same content as the file on disk, so
+   * the compiler doesn't see them as changed.
+   */
+  @Parameter(defaultValue = "true")
+  private boolean skipUnchanged;
+
+  /**
+   * Directory to cache parsed JavaScript files in, to skip parsing unchanged
+   * files in later builds. If not set no cache is used.
+   */
+  @Parameter
+  private File cacheDirectory;
+
+  /**
+   * Maximum size of the cache in megabytes.
+   */
+  @Parameter(defaultValue = "256")
+  private int cacheMaxSize;
+
+  /**
+   * Maximum number of overloads generated for a single method. Methods with
+   * more combinations of optional and union typed parameters get
+   * JavaScriptObject parameters instead of the union types.
+   */
+  @Parameter(defaultValue = "64")
+  private int maxOverloads;
+
+  /**
+   * Glob patterns of JavaScript files to include. A pattern with a '/' is
+   * matched against the path relative to the include directory, other
+   * patterns against the file name. If not set all JavaScript files are
+   * included.
+   */
+  @Parameter
+  private String[] includePatterns;
+
+  /**
+   * Glob patterns of JavaScript files and directories to exclude, like
+   * {@code node_modules} or {@code test/**}.
+   */
+  @Parameter
+  private String[] excludePatterns;
+
+  /**
+   * File to write the metrics of the run to as JSON: time per phase, counts
+   * of files, nodes, overloads and bytes, in total and per source file.
+   */
+  @Parameter
+  private File metricsFile;
+
+  /**
+   * Charset of the JavaScript files. If not set UTF-8 is used.
+   */
+  @Parameter(defaultValue = "${project.build.sourceEncoding}")
+  private String encoding;
+
+  /**
+   * Skip generation when the JavaScript files, the type mapper file, the
+   * plugin version and the settings didn't change since the previous build.
+   */
+  @Parameter(defaultValue = "true")
+  private boolean skipUpToDate;
+
   /**
    * The Maven project instance for the executing project.
    */
   @Component
   private MavenProject project;
 
+  /**
+   * Build context of the IDE, or of Maven when run from the command line.
+   */
+  @Component
+  private BuildContext buildContext;
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
-    getLog().info("Generate gwt library");
     final List<File> srcPaths = processInputArguments();
     final File outputPath = new File(project.getBuild().getDirectory(), GEN_DIRECTORY);
-    setTypeMappings();
-    final Controller controller = new Controller(srcPaths, outputPath);
-    controller.run(outputType);
-    getLog().info("Finished generating sources");
+    if (skipUpToDate && buildContext.isIncremental() && outputPath.isDirectory()
+        && !hasDelta(srcPaths)) {
+      getLog().info("No JavaScript files changed, skip generating sources");
+    } else {
+      generate(srcPaths, outputPath);
+    }
     addGeneratedSourcesAsResource(outputPath);
     addGeneratedSourcesToCompilePath(outputPath);
   }
 
+  private void generate(final List<File> srcPaths, final File outputPath) {
+    getLog().info("Generate gwt library");
+    final Controller controller = new Controller(srcPaths, outputPath);
+    controller.setTypeMapper(createTypeMapper());
+    controller.setThreads(threads);
+    controller.setSourceEncoding(encoding == null
+        ? StandardCharsets.UTF_8 : Charset.forName(encoding));
+    controller.setMaxOverloads(maxOverloads);
+    controller.setIncremental(incremental);
+    controller.setSkipUnchanged(skipUnchanged);
+    controller.setSkipUpToDate(skipUpToDate);
+    controller.setMetricsFile(metricsFile);
+    if (includePatterns != null) {
+      for (final String include : includePatterns) {
+        controller.addInclude(include);
+      }
+    }
+    if (excludePatterns != null) {
+      for (final String exclude : excludePatterns) {
+        controller.addExclude(exclude);
+      }
+    }
+    if (cacheDirectory != null) {
+      controller.setParseCache(
+          new ParseCache(cacheDirectory, cacheMaxSize * MEGABYTE));
+    }
+    if (typeMapperFile != null) {
+      controller.addSettingsFile(new File(typeMapperFile));
+    }
+    if (controller.run(outputType)) {
+      buildContext.refresh(outputPath);
+      getLog().info("Finished generating sources");
+    } else {
+      getLog().info("Generated sources are up to date");
+    }
+  }
+
+  /**
+   * Returns true if the build context reports changes in any of the sources
+   * or in the type mapper file.
+   */
+  private boolean hasDelta(final List<File> srcPaths) {
+    for (final File srcPath : srcPaths) {
+      if (buildContext.hasDelta(srcPath)) {
+        return true;
+      }
+    }
+    return typeMapperFile != null
+        && buildContext.hasDelta(new File(typeMapperFile));
+  }
+
   /**
    * @deprecated should use xml configuration in future.
    */
   @Deprecated
-  private void setTypeMappings() {
-    final File localFile = new File(typeMapperFile);
-    if (localFile.exists()) {
-      final Properties props = new Properties();
+  private TypeMapper createTypeMapper() {
+    final Properties props = new Properties();
+    final File localFile =
+        typeMapperFile == null ? null : new File(typeMapperFile);
+    if (localFile != null && localFile.exists()) {
       try (final InputStream is = new FileInputStream(localFile)) {
         props.load(is);
-        TypeMapper.INSTANCE.addMappings(props);
       } catch (final IOException e) {
         e.printStackTrace();
       }
     }
+    return new TypeMapper(props);
   }
 
   private List<File> processInputArguments() {
@@ -121,6 +265,8 @@ public class GruifoMojo extends AbstractMojo {
     getLog().info("add resource path" + outputPath.getAbsolutePath());
     final Resource resource = new Resource();
     resource.setDirectory(outputPath.getAbsolutePath());
+    resource.addExclude(IncrementalBuild.MANIFEST_FILE);
+    resource.addExclude(BuildStamp.STAMP_FILE);
     project.addResource(resource);
   }
 